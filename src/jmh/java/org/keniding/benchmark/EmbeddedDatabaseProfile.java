@@ -0,0 +1,27 @@
+package org.keniding.benchmark;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+import java.util.Map;
+
+/**
+ * Perfil de test que sustituye MySQL por una base de datos H2 en memoria.
+ */
+public class EmbeddedDatabaseProfile implements QuarkusTestProfile {
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+        return Map.of(
+                "quarkus.datasource.db-kind", "h2",
+                "quarkus.datasource.db-version", "2.0.0",
+                "quarkus.datasource.username", "sa",
+                "quarkus.datasource.jdbc.url", "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "quarkus.hibernate-orm.database.generation", "drop-and-create",
+                "quarkus.hibernate-orm.log.sql", "false");
+    }
+
+    @Override
+    public String getConfigProfile() {
+        return "benchmark";
+    }
+}
@@ -0,0 +1,104 @@
+package org.keniding.benchmark;
+
+import org.keniding.model.Person;
+import org.keniding.performance.PersonGenerator;
+import org.keniding.repository.PersonWriteAheadLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Tiempo de arranque de {@link PersonWriteAheadLog}: reconstrucción de millones de personas
+ * desde un snapshot o reproduciendo únicamente el log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PersonRecoveryBenchmark {
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    @Param({"1000000", "3000000"})
+    int persons;
+
+    @Param({"snapshot", "wal"})
+    String source;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("person-recovery");
+        PersonWriteAheadLog log = new PersonWriteAheadLog(directory, SEGMENT_SIZE, 5, false);
+        log.recover(new Collecting(new HashMap<>()));
+        Map<Long, Person> written = "snapshot".equals(source) ? new HashMap<>() : null;
+        Iterator<Person> generated = new PersonGenerator().iterator(persons, 42L);
+        for (long id = 1; generated.hasNext(); id++) {
+            Person person = generated.next();
+            person.setId(id);
+            log.appendPut(person);
+            if (written != null) {
+                written.put(id, person);
+            }
+        }
+        if (written != null) {
+            log.snapshot(written.values(), persons + 1L);
+        }
+        log.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Map<Long, Person> recover() throws IOException {
+        Map<Long, Person> persons = new HashMap<>();
+        PersonWriteAheadLog log = new PersonWriteAheadLog(directory, SEGMENT_SIZE, 5, false);
+        try {
+            log.recover(new Collecting(persons));
+        } finally {
+            log.close();
+        }
+        return persons;
+    }
+
+    private record Collecting(Map<Long, Person> persons) implements PersonWriteAheadLog.RecoveryListener {
+        @Override
+        public void put(Person person) {
+            persons.put(person.getId(), person);
+        }
+
+        @Override
+        public void delete(long id) {
+            persons.remove(id);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.keniding.benchmark;
+
+import org.keniding.model.Person;
+import org.keniding.performance.PersonGenerator;
+import org.keniding.repository.PersonRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminos calientes de {@link PersonRepository}: lecturas, escrituras y ambas mezcladas
+ * bajo contención.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonRepositoryBenchmark {
+    @Param({"10000", "100000"})
+    int size;
+
+    private PersonRepository repository;
+    private List<Person> templates;
+
+    @Setup
+    public void setUp() {
+        repository = new PersonRepository();
+        templates = new PersonGenerator().generate(size, 42L);
+        for (Person template : templates) {
+            repository.save(copyOf(template, null));
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Person> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<Person> findById() {
+        return repository.findById(randomId());
+    }
+
+    /**
+     * Sobrescribe personas existentes para que el tamaño del mapa no crezca durante la medición.
+     */
+    @Benchmark
+    @Threads(4)
+    public Person save() {
+        long id = randomId();
+        return repository.save(copyOf(templates.get((int) (id - 1)), id));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Optional<Person> mixedRead() {
+        return repository.findById(randomId());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public Person mixedWrite() {
+        long id = randomId();
+        return repository.save(copyOf(templates.get((int) (id - 1)), id));
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, size + 1L);
+    }
+
+    private static Person copyOf(Person template, Long id) {
+        return new Person(id, template.getName(), template.getLastName(), template.getAge(),
+                template.getHeight(), template.getWeight(), template.getBirthDate());
+    }
+}
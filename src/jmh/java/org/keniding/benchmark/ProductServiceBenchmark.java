@@ -0,0 +1,109 @@
+package org.keniding.benchmark;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ManagedContext;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import org.keniding.model.Product;
+import org.keniding.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Lógica de {@link ProductService} contra una base de datos H2 embebida.
+ * <p>
+ * Necesita una aplicación Quarkus arrancada en el mismo proceso, por lo que no se ejecuta
+ * con {@code exec:exec} sino desde {@link ProductServiceBenchmarkTest}. Cada invocación
+ * activa su propio contexto de petición, igual que una petición HTTP real.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public class ProductServiceBenchmark {
+    static final int PRODUCTS = 10_000;
+
+    private final AtomicLong skuSequence = new AtomicLong();
+    private ProductService productService;
+    private long firstId;
+
+    @Setup
+    public void setUp() {
+        productService = Arc.container().instance(ProductService.class).get();
+        SplittableRandom random = new SplittableRandom(42L);
+        firstId = QuarkusTransaction.requiringNew().call(() -> {
+            long first = Long.MAX_VALUE;
+            for (int i = 0; i < PRODUCTS; i++) {
+                Product product = SerializationBenchmark.newProduct(i, random);
+                product.id = null;
+                product.setSku("BENCH-" + skuSequence.incrementAndGet());
+                first = Math.min(first, productService.create(product).id);
+            }
+            return first;
+        });
+    }
+
+    @Benchmark
+    public List<Product> findAllPage() {
+        return inRequest(() -> productService.findAll(ThreadLocalRandom.current().nextInt(50), 20, "name", true));
+    }
+
+    @Benchmark
+    public Product findById() {
+        return inRequest(() -> productService.findById(randomId()));
+    }
+
+    @Benchmark
+    public Optional<Product> findBySku() {
+        return inRequest(() -> productService.findBySku("BENCH-" + ThreadLocalRandom.current().nextInt(1, PRODUCTS + 1)));
+    }
+
+    @Benchmark
+    public long count() {
+        return inRequest(productService::count);
+    }
+
+    @Benchmark
+    public Product updateStock() {
+        return inRequest(() -> productService.updateStock(randomId(), 1));
+    }
+
+    @Benchmark
+    public Product create() {
+        Product product = SerializationBenchmark.newProduct(0, new SplittableRandom());
+        product.id = null;
+        product.setSku("BENCH-" + skuSequence.incrementAndGet());
+        return inRequest(() -> productService.create(product));
+    }
+
+    private long randomId() {
+        return firstId + ThreadLocalRandom.current().nextInt(PRODUCTS);
+    }
+
+    private static <T> T inRequest(Supplier<T> work) {
+        ManagedContext requestContext = Arc.container().requestContext();
+        requestContext.activate();
+        try {
+            return work.get();
+        } finally {
+            requestContext.terminate();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.keniding.benchmark;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Arranca Quarkus con H2 y ejecuta {@link ProductServiceBenchmark} dentro del mismo proceso.
+ * <p>
+ * JMH no puede hacer fork porque los beans solo existen en esta JVM. Los resultados se
+ * escriben en {@code target/jmh-product-service.json}.
+ */
+@QuarkusTest
+@TestProfile(EmbeddedDatabaseProfile.class)
+class ProductServiceBenchmarkTest {
+
+    @Test
+    void runBenchmark() throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductServiceBenchmark.class.getSimpleName())
+                .forks(0)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-product-service.json")
+                .build())
+                .run();
+    }
+}
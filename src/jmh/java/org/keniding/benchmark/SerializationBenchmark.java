@@ -0,0 +1,122 @@
+package org.keniding.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.keniding.controller.PerformanceTestController.LargeObject;
+import org.keniding.dto.PagedResponse;
+import org.keniding.enums.ProductCategory;
+import org.keniding.model.Person;
+import org.keniding.model.Product;
+import org.keniding.performance.PersonGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de serializar con Jackson los modelos que devuelven los endpoints.
+ * <p>
+ * El {@link ObjectMapper} se configura como el que produce Quarkus por defecto
+ * (módulos registrados y fechas como texto ISO).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    private ObjectWriter personWriter;
+    private ObjectWriter productWriter;
+    private ObjectWriter pagedProductsWriter;
+    private ObjectWriter largeObjectWriter;
+
+    private Person person;
+    private Product product;
+    private PagedResponse<Product> pagedProducts;
+    private LargeObject largeObject;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        personWriter = mapper.writerFor(Person.class);
+        productWriter = mapper.writerFor(Product.class);
+        pagedProductsWriter = mapper.writerFor(new TypeReference<PagedResponse<Product>>() { });
+        largeObjectWriter = mapper.writerFor(LargeObject.class);
+
+        person = new PersonGenerator().generate(1, 42L).get(0);
+
+        SplittableRandom random = new SplittableRandom(42L);
+        product = newProduct(1, random);
+        List<Product> page = new ArrayList<>(20);
+        for (int i = 0; i < 20; i++) {
+            page.add(newProduct(i + 1, random));
+        }
+        pagedProducts = PagedResponse.of(page, 10_000, 3, 20);
+
+        largeObject = new LargeObject();
+        largeObject.setId(random.nextLong());
+        largeObject.setTimestamp(System.currentTimeMillis());
+        int[] data = new int[2_500_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = random.nextInt();
+        }
+        largeObject.setData(data);
+    }
+
+    @Benchmark
+    public byte[] person() throws JsonProcessingException {
+        return personWriter.writeValueAsBytes(person);
+    }
+
+    @Benchmark
+    public byte[] product() throws JsonProcessingException {
+        return productWriter.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] pagedProducts() throws JsonProcessingException {
+        return pagedProductsWriter.writeValueAsBytes(pagedProducts);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public byte[] largeObject() throws JsonProcessingException {
+        return largeObjectWriter.writeValueAsBytes(largeObject);
+    }
+
+    static Product newProduct(long id, SplittableRandom random) {
+        Product product = new Product();
+        product.id = id;
+        product.setName("Producto de prueba " + id);
+        product.setDescription("Descripción del producto " + id + " con un texto de longitud similar a la real");
+        product.setPrice(BigDecimal.valueOf(1 + random.nextInt(100_000), 2));
+        product.setStock(random.nextInt(1000));
+        product.setSku("SKU-" + id);
+        product.setCategory(ProductCategory.values()[random.nextInt(ProductCategory.values().length)]);
+        product.setCreatedAt(LocalDateTime.of(2025, 1, 1, 0, 0));
+        product.setUpdatedAt(product.getCreatedAt());
+        product.setImageUrl("https://example.com/images/" + id + ".png");
+        return product;
+    }
+}
@@ -0,0 +1,143 @@
+package org.keniding.benchmark.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el efecto del modelo de ejecución de cada controlador sobre throughput y latencia.
+ * <p>
+ * Para cada combinación de {@code load.models} arranca la aplicación empaquetada con
+ * {@code persons.execution-model} y {@code products.execution-model} fijados, espera a que
+ * responda, lanza la misma mezcla de rutas con {@link LoadGenerator} y la detiene. Al final
+ * imprime, por combinación y ruta, la tasa conseguida y los percentiles de latencia.
+ * <p>
+ * Necesita {@code ./mvnw package} y una base de datos accesible. Propiedades de sistema:
+ * <ul>
+ *   <li>{@code load.jar}: aplicación a arrancar, por defecto {@code target/quarkus-app/quarkus-run.jar}</li>
+ *   <li>{@code load.port}: puerto HTTP de la aplicación, por defecto 8081</li>
+ *   <li>{@code load.models}: combinaciones separadas por comas; {@code personas/productos} o un
+ *       único modelo para ambos, p. ej. {@code worker,event-loop/virtual-thread}</li>
+ *   <li>{@code load.rate}, {@code load.warmup}, {@code load.duration}, {@code load.mix} y
+ *       {@code load.maxInFlight}: como en {@link LoadGenerator}</li>
+ * </ul>
+ */
+public final class ExecutionModelComparison {
+    static final String DEFAULT_MODELS = "worker,virtual-thread,event-loop/worker,event-loop/virtual-thread";
+    static final String DEFAULT_MIX = "4:/api/persons?limit=100;2:/api/persons/stats;3:/api/products?page=0&size=20";
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+
+    private ExecutionModelComparison() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path jar = Path.of(System.getProperty("load.jar", "target/quarkus-app/quarkus-run.jar"));
+        int port = Integer.getInteger("load.port", 8081);
+        int rate = Integer.getInteger("load.rate", 2000);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("load.warmup", 10));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("load.duration", 30));
+        String mix = System.getProperty("load.mix", DEFAULT_MIX);
+        int maxInFlight = Integer.getInteger("load.maxInFlight", 10_000);
+        URI baseUrl = URI.create("http://localhost:" + port);
+
+        List<Run> runs = new ArrayList<>();
+        for (String entry : System.getProperty("load.models", DEFAULT_MODELS).split(",")) {
+            String[] models = entry.trim().split("/");
+            String personsModel = models[0];
+            String productsModel = models.length > 1 ? models[1] : models[0];
+
+            Process application = start(jar, port, personsModel, productsModel);
+            try {
+                awaitReady(baseUrl, application);
+                List<LoadGenerator.Route> routes = LoadGenerator.Route.parseMix(mix);
+                System.out.printf(Locale.ROOT, "%n== persons=%s products=%s @ %d req/s%n",
+                        personsModel, productsModel, rate);
+                LoadGenerator.LoadReport report = new LoadGenerator(baseUrl, routes, maxInFlight)
+                        .run(rate, warmup, duration);
+                report.print(System.out);
+                runs.add(new Run(personsModel + "/" + productsModel, routes, report));
+            } finally {
+                stop(application);
+            }
+        }
+        printSummary(System.out, runs);
+    }
+
+    private static Process start(Path jar, int port, String personsModel, String productsModel) throws IOException {
+        List<String> command = List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Dquarkus.http.port=" + port,
+                "-Dpersons.execution-model=" + personsModel,
+                "-Dproducts.execution-model=" + productsModel,
+                "-jar", jar.toString());
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+    }
+
+    private static void awaitReady(URI baseUrl, Process application) throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest probe = HttpRequest.newBuilder(baseUrl.resolve("/api/persons?limit=1"))
+                .timeout(Duration.ofSeconds(2))
+                .GET()
+                .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!application.isAlive()) {
+                throw new IllegalStateException("La aplicación terminó al arrancar con código " + application.exitValue());
+            }
+            try {
+                if (client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Todavía no escucha en el puerto
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("La aplicación no respondió en " + STARTUP_TIMEOUT.toSeconds() + " s");
+    }
+
+    private static void stop(Process application) throws InterruptedException {
+        application.destroy();
+        if (!application.waitFor(30, TimeUnit.SECONDS)) {
+            application.destroyForcibly().waitFor();
+        }
+    }
+
+    private static void printSummary(PrintStream out, List<Run> runs) {
+        out.printf(Locale.ROOT, "%n%-30s %-40s %12s %9s %9s %9s%n",
+                "persons/products", "route", "achieved", "p50 ms", "p99 ms", "p99.9 ms");
+        for (Run run : runs) {
+            for (LoadGenerator.Route route : run.routes()) {
+                printLine(out, run.models(), route.path(), route.histogram(), run.report().achievedRate()
+                        * route.histogram().getTotalCount() / Math.max(1, run.report().total().getTotalCount()));
+            }
+            printLine(out, run.models(), "TOTAL", run.report().total(), run.report().achievedRate());
+        }
+    }
+
+    private static void printLine(PrintStream out, String models, String route, Histogram histogram, double rate) {
+        out.printf(Locale.ROOT, "%-30s %-40s %12.1f %9.2f %9.2f %9.2f%n",
+                models, route, rate,
+                histogram.getValueAtPercentile(50) / 1_000_000.0,
+                histogram.getValueAtPercentile(99) / 1_000_000.0,
+                histogram.getValueAtPercentile(99.9) / 1_000_000.0);
+    }
+
+    private record Run(String models, List<LoadGenerator.Route> routes, LoadGenerator.LoadReport report) {
+    }
+}
@@ -0,0 +1,300 @@
+package org.keniding.benchmark.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga en bucle abierto contra una instancia de la aplicación.
+ * <p>
+ * Las peticiones se lanzan según un calendario fijo ({@code rate} por segundo) sin esperar
+ * a que terminen las anteriores, y la latencia de cada una se mide desde el instante en que
+ * <em>debía</em> enviarse. Así, si el servidor o el propio generador se retrasan, ese retraso
+ * aparece en los percentiles en lugar de ocultarse (coordinated omission).
+ * <p>
+ * Un envío descartado por superar {@code load.maxInFlight} tampoco desaparece de las
+ * estadísticas: queda pendiente hasta que se libera una petición en curso y entonces se
+ * registra como muestra de latencia el tiempo transcurrido desde su inicio previsto. Es una
+ * cota inferior de lo que habría tardado, y se cuenta además en la columna de descartados.
+ * <p>
+ * Se configura con propiedades de sistema:
+ * <ul>
+ *   <li>{@code load.baseUrl}: URL base, por defecto {@code http://localhost:8080}</li>
+ *   <li>{@code load.rate}: peticiones por segundo, por defecto 200</li>
+ *   <li>{@code load.warmup} y {@code load.duration}: segundos de calentamiento y de medición</li>
+ *   <li>{@code load.mix}: rutas con su peso, p. ej. {@code 5:/api/persons;1:/api/products?size=20}</li>
+ *   <li>{@code load.maxInFlight}: peticiones simultáneas máximas antes de descartar envíos</li>
+ * </ul>
+ */
+public final class LoadGenerator {
+    static final String DEFAULT_MIX = "5:/api/persons;3:/api/products?page=0&size=20;1:/api/performance/persons?count=1000";
+
+    private final HttpClient client;
+    private final URI baseUrl;
+    private final List<Route> routes;
+    private final int totalWeight;
+    private final int maxInFlight;
+
+    public LoadGenerator(URI baseUrl, List<Route> routes, int maxInFlight) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.baseUrl = baseUrl;
+        this.routes = routes;
+        this.totalWeight = routes.stream().mapToInt(Route::weight).sum();
+        this.maxInFlight = maxInFlight;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        URI baseUrl = URI.create(System.getProperty("load.baseUrl", "http://localhost:8080"));
+        int rate = Integer.getInteger("load.rate", 200);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("load.warmup", 10));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("load.duration", 30));
+        List<Route> routes = Route.parseMix(System.getProperty("load.mix", DEFAULT_MIX));
+
+        LoadGenerator generator = new LoadGenerator(baseUrl, routes, Integer.getInteger("load.maxInFlight", 10_000));
+        generator.run(rate, warmup, duration).print(System.out);
+    }
+
+    /**
+     * Ejecuta una fase de calentamiento sin registrar y después la fase medida.
+     *
+     * @param ratePerSecond Peticiones por segundo
+     * @param warmup Duración del calentamiento
+     * @param duration Duración de la medición
+     * @return Resultados de la fase medida
+     */
+    public LoadReport run(int ratePerSecond, Duration warmup, Duration duration) throws InterruptedException {
+        if (!warmup.isZero()) {
+            runPhase(ratePerSecond, warmup);
+        }
+        routes.forEach(Route::reset);
+        long start = System.nanoTime();
+        long sent = runPhase(ratePerSecond, duration);
+        long elapsed = System.nanoTime() - start;
+        return new LoadReport(routes, ratePerSecond, sent, elapsed);
+    }
+
+    private long runPhase(int ratePerSecond, Duration duration) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        AtomicInteger inFlight = new AtomicInteger();
+        ConcurrentLinkedQueue<Drop> drops = new ConcurrentLinkedQueue<>();
+        SplittableRandom random = new SplittableRandom();
+        long sent = 0;
+
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intendedStart) {
+                LockSupport.parkNanos(intendedStart - now);
+            }
+
+            Route route = pick(random);
+            if (inFlight.get() >= maxInFlight) {
+                drops.add(new Drop(route, intendedStart));
+                continue;
+            }
+            inFlight.incrementAndGet();
+            sent++;
+            HttpRequest request = HttpRequest.newBuilder(baseUrl.resolve(route.path()))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        route.recorder.recordValue(System.nanoTime() - intendedStart);
+                        if (error != null || response.statusCode() >= 400) {
+                            route.errors.increment();
+                        }
+                        inFlight.decrementAndGet();
+                        recordDrops(drops);
+                    });
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        recordDrops(drops);
+        return sent;
+    }
+
+    /**
+     * Registra los envíos descartados pendientes con la latencia acumulada hasta ahora, que es
+     * cuando el generador vuelve a tener capacidad (o termina la fase).
+     */
+    private static void recordDrops(ConcurrentLinkedQueue<Drop> drops) {
+        Drop drop;
+        while ((drop = drops.poll()) != null) {
+            drop.route().recorder.recordValue(System.nanoTime() - drop.intendedStart());
+            drop.route().dropped.increment();
+        }
+    }
+
+    private Route pick(SplittableRandom random) {
+        int value = random.nextInt(totalWeight);
+        for (Route route : routes) {
+            value -= route.weight();
+            if (value < 0) {
+                return route;
+            }
+        }
+        return routes.get(routes.size() - 1);
+    }
+
+    /**
+     * Envío descartado a la espera de registrarse.
+     */
+    private record Drop(Route route, long intendedStart) {
+    }
+
+    /**
+     * Ruta a solicitar con su peso dentro de la mezcla y sus contadores.
+     */
+    public static final class Route {
+        private final int weight;
+        private final String path;
+        private final Recorder recorder = new Recorder(3);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private Histogram histogram;
+
+        public Route(int weight, String path) {
+            this.weight = weight;
+            this.path = path;
+        }
+
+        /**
+         * Interpreta una mezcla con el formato {@code peso:ruta;peso:ruta}.
+         */
+        public static List<Route> parseMix(String mix) {
+            List<Route> routes = new ArrayList<>();
+            for (String entry : mix.split(";")) {
+                String trimmed = entry.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                int separator = trimmed.indexOf(':');
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("Entrada de mezcla no válida: " + trimmed);
+                }
+                routes.add(new Route(Integer.parseInt(trimmed.substring(0, separator)), trimmed.substring(separator + 1)));
+            }
+            if (routes.isEmpty()) {
+                throw new IllegalArgumentException("La mezcla de rutas está vacía");
+            }
+            return routes;
+        }
+
+        public int weight() {
+            return weight;
+        }
+
+        public String path() {
+            return path;
+        }
+
+        void reset() {
+            recorder.reset();
+            errors.reset();
+            dropped.reset();
+            histogram = null;
+        }
+
+        Histogram histogram() {
+            if (histogram == null) {
+                histogram = recorder.getIntervalHistogram();
+            }
+            return histogram;
+        }
+    }
+
+    /**
+     * Resultados de una fase medida: percentiles por ruta y globales.
+     */
+    public static final class LoadReport {
+        private final List<Route> routes;
+        private final int targetRate;
+        private final long sent;
+        private final long elapsedNanos;
+        private final Histogram total = new Histogram(3);
+
+        LoadReport(List<Route> routes, int targetRate, long sent, long elapsedNanos) {
+            this.routes = routes;
+            this.targetRate = targetRate;
+            this.sent = sent;
+            this.elapsedNanos = elapsedNanos;
+            routes.forEach(route -> total.add(route.histogram()));
+        }
+
+        public Histogram total() {
+            return total;
+        }
+
+        public double percentileMillis(double percentile) {
+            return toMillis(total.getValueAtPercentile(percentile));
+        }
+
+        /**
+         * Peticiones realmente completadas; el histograma incluye también los descartes.
+         */
+        public long completed() {
+            return total.getTotalCount() - dropped();
+        }
+
+        public long dropped() {
+            return routes.stream().mapToLong(route -> route.dropped.sum()).sum();
+        }
+
+        public double achievedRate() {
+            return completed() / (elapsedNanos / 1e9);
+        }
+
+        public void print(PrintStream out) {
+            out.printf(Locale.ROOT, "target=%d req/s sent=%d completed=%d achieved=%.1f req/s%n",
+                    targetRate, sent, completed(), achievedRate());
+            out.printf(Locale.ROOT, "%-50s %9s %7s %7s %9s %9s %9s %9s%n",
+                    "route", "count", "errors", "dropped", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+            for (Route route : routes) {
+                printLine(out, route.path(), route.histogram(), route.errors.sum(), route.dropped.sum());
+            }
+            printLine(out, "TOTAL", total,
+                    routes.stream().mapToLong(route -> route.errors.sum()).sum(),
+                    dropped());
+        }
+
+        private static void printLine(PrintStream out, String name, Histogram histogram, long errors, long dropped) {
+            out.printf(Locale.ROOT, "%-50s %9d %7d %7d %9.2f %9.2f %9.2f %9.2f%n",
+                    name, histogram.getTotalCount(), errors, dropped,
+                    toMillis(histogram.getValueAtPercentile(50)),
+                    toMillis(histogram.getValueAtPercentile(99)),
+                    toMillis(histogram.getValueAtPercentile(99.9)),
+                    toMillis(histogram.getMaxValue()));
+        }
+
+        private static double toMillis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.keniding.benchmark.load;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compara la pila bloqueante de productos ({@code /api/products}) con la reactiva
+ * ({@code /api/reactive/products}) bajo la misma carga.
+ * <p>
+ * Para cada tasa de {@code load.rates} lanza la misma mezcla de rutas contra una pila y
+ * después contra la otra con {@link LoadGenerator}, y resume la tasa conseguida y los
+ * percentiles de latencia de ambas. Con tasas altas la pila bloqueante se queda sin hilos
+ * del pool de workers o sin conexiones JDBC y la latencia crece por espera en cola; la
+ * tabla muestra a partir de qué tasa ocurre en cada una.
+ * <p>
+ * Necesita una instancia construida con el perfil {@code reactive}. Propiedades de sistema:
+ * <ul>
+ *   <li>{@code load.baseUrl}: URL base, por defecto {@code http://localhost:8080}</li>
+ *   <li>{@code load.rates}: tasas en peticiones por segundo separadas por comas</li>
+ *   <li>{@code load.warmup} y {@code load.duration}: segundos de calentamiento y de medición</li>
+ *   <li>{@code load.mix}: rutas relativas a la raíz de productos con su peso</li>
+ *   <li>{@code load.maxInFlight}: peticiones simultáneas máximas antes de descartar envíos</li>
+ * </ul>
+ */
+public final class ProductStackComparison {
+    static final String DEFAULT_MIX = "4:?page=0&size=20&sort=price;2:?category=BOOKS&size=20;1:?page=10&size=50";
+
+    private static final String BLOCKING_ROOT = "/api/products";
+    private static final String REACTIVE_ROOT = "/api/reactive/products";
+
+    private ProductStackComparison() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        URI baseUrl = URI.create(System.getProperty("load.baseUrl", "http://localhost:8080"));
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("load.warmup", 10));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("load.duration", 30));
+        int maxInFlight = Integer.getInteger("load.maxInFlight", 10_000);
+        String mix = System.getProperty("load.mix", DEFAULT_MIX);
+
+        List<Row> rows = new ArrayList<>();
+        for (String rate : System.getProperty("load.rates", "500,1000,2000,4000").split(",")) {
+            int ratePerSecond = Integer.parseInt(rate.trim());
+            for (String root : List.of(BLOCKING_ROOT, REACTIVE_ROOT)) {
+                LoadGenerator generator = new LoadGenerator(baseUrl, routes(root, mix), maxInFlight);
+                System.out.printf(Locale.ROOT, "%n== %s @ %d req/s%n", root, ratePerSecond);
+                LoadGenerator.LoadReport report = generator.run(ratePerSecond, warmup, duration);
+                report.print(System.out);
+                rows.add(new Row(root, ratePerSecond, report));
+            }
+        }
+        printSummary(System.out, rows);
+    }
+
+    /**
+     * Antepone la raíz de la pila a cada ruta de la mezcla.
+     */
+    static List<LoadGenerator.Route> routes(String root, String mix) {
+        List<LoadGenerator.Route> routes = new ArrayList<>();
+        for (LoadGenerator.Route route : LoadGenerator.Route.parseMix(mix)) {
+            routes.add(new LoadGenerator.Route(route.weight(), root + route.path()));
+        }
+        return routes;
+    }
+
+    private static void printSummary(PrintStream out, List<Row> rows) {
+        out.printf(Locale.ROOT, "%n%-24s %9s %12s %9s %9s %9s%n",
+                "stack", "target", "achieved", "p50 ms", "p99 ms", "p99.9 ms");
+        for (Row row : rows) {
+            out.printf(Locale.ROOT, "%-24s %9d %12.1f %9.2f %9.2f %9.2f%n",
+                    row.root(), row.rate(), row.report().achievedRate(),
+                    row.report().percentileMillis(50),
+                    row.report().percentileMillis(99),
+                    row.report().percentileMillis(99.9));
+        }
+    }
+
+    private record Row(String root, int rate, LoadGenerator.LoadReport report) {
+    }
+}
@@ -0,0 +1,66 @@
+package org.keniding.config;
+
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.InjectableContext;
+import io.quarkus.arc.ManagedContext;
+import io.quarkus.virtual.threads.VirtualThreads;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.keniding.enums.ExecutionModel;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta el cuerpo de un endpoint según un {@link ExecutionModel} elegido por configuración.
+ * <p>
+ * Los endpoints que lo usan devuelven {@link Uni}, por lo que Quarkus los invoca en el event
+ * loop. Con {@link ExecutionModel#EVENT_LOOP} el trabajo se hace ahí mismo; con los otros
+ * modelos se traslada al pool de workers o a un hilo virtual y la respuesta se escribe al
+ * terminar. Al cambiar de hilo se activa en el nuevo el mismo contexto de petición, de modo
+ * que los beans {@code @RequestScoped} (entre ellos la sesión de Hibernate) siguen siendo los
+ * de la petición.
+ */
+@ApplicationScoped
+public class ExecutionDispatcher {
+    private final ExecutorService virtualThreads;
+
+    @Inject
+    public ExecutionDispatcher(@VirtualThreads ExecutorService virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Ejecuta {@code work} con el modelo indicado.
+     *
+     * @param model Dónde ejecutar el trabajo
+     * @param work Cuerpo del endpoint
+     * @return El resultado, que se produce al suscribirse
+     */
+    public <T> Uni<T> dispatch(ExecutionModel model, Supplier<T> work) {
+        return switch (model) {
+            case EVENT_LOOP -> Uni.createFrom().item(work);
+            case WORKER -> onExecutor(Infrastructure.getDefaultWorkerPool(), work);
+            case VIRTUAL_THREAD -> onExecutor(virtualThreads, work);
+        };
+    }
+
+    private static <T> Uni<T> onExecutor(Executor executor, Supplier<T> work) {
+        ManagedContext requestContext = Arc.container().requestContext();
+        InjectableContext.ContextState state = requestContext.isActive() ? requestContext.getState() : null;
+        return Uni.createFrom().item(() -> {
+            if (state == null) {
+                return work.get();
+            }
+            requestContext.activate(state);
+            try {
+                return work.get();
+            } finally {
+                requestContext.deactivate();
+            }
+        }).runSubscriptionOn(executor);
+    }
+}
@@ -1,64 +1,249 @@
 package org.keniding.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.core.Variant;
 import lombok.Data;
 import org.keniding.model.Person;
+import org.keniding.performance.ByteBufferPool;
+import org.keniding.performance.PersonGenerator;
+import org.keniding.performance.SerializedCorpusCache;
+import org.keniding.performance.SerializedCorpusCache.CorpusKey;
+import org.keniding.service.PersonService;
 
-import java.util.ArrayList;
-import java.util.Date;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 @Path("/api/performance")
 public class PerformanceTestController {
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final int STREAM_FLUSH_INTERVAL = 1000;
+    private static final int ESTIMATED_PERSON_BYTES = 160;
+    private static final int LARGE_OBJECT_LENGTH = 2_500_000;
+    private static final int LARGE_OBJECT_HEADER_BYTES = Long.BYTES + Long.BYTES + Integer.BYTES;
+    private static final List<Variant> LARGE_OBJECT_VARIANTS = Variant.mediaTypes(
+            MediaType.APPLICATION_JSON_TYPE, MediaType.APPLICATION_OCTET_STREAM_TYPE).build();
 
-    private final Random random = new Random();
-    private final String[] firstNames = {"Juan", "María", "Pedro", "Ana", "Luis", "Sofía", "Carlos", "Laura", "Miguel", "Elena"};
-    private final String[] lastNames = {"García", "Rodríguez", "López", "Martínez", "González", "Pérez", "Sánchez", "Fernández", "Ramírez", "Torres"};
+    private final ByteBufferPool largeObjectBuffers = new ByteBufferPool(
+            4, LARGE_OBJECT_HEADER_BYTES + LARGE_OBJECT_LENGTH * Integer.BYTES);
 
+    private final ObjectMapper objectMapper;
+    private final SerializedCorpusCache corpusCache;
+    private final PersonGenerator personGenerator;
+    private final PersonService personService;
+
+    @Inject
+    public PerformanceTestController(ObjectMapper objectMapper, SerializedCorpusCache corpusCache,
+                                     PersonGenerator personGenerator, PersonService personService) {
+        this.objectMapper = objectMapper;
+        this.corpusCache = corpusCache;
+        this.personGenerator = personGenerator;
+        this.personService = personService;
+    }
+
+    /**
+     * Genera una lista de personas aleatorias.
+     * <p>
+     * Si se indica {@code seed} el resultado es determinista (incluidas las fechas de
+     * nacimiento, calculadas respecto a una fecha de referencia fija) y el JSON generado
+     * se guarda en {@link SerializedCorpusCache}, de modo que las llamadas repetidas con la
+     * misma semilla y tamaño no vuelven a generar ni serializar los datos.
+     *
+     * @param count Número de personas a generar
+     * @param seed Semilla opcional para obtener siempre los mismos datos
+     * @return Respuesta HTTP con la lista de personas en formato JSON
+     */
     @GET
     @Path("/persons")
     @Produces(MediaType.APPLICATION_JSON)
-    public List<Person> getPersons(@QueryParam("count") Integer count) {
+    public Response getPersons(@QueryParam("count") Integer count, @QueryParam("seed") Long seed) {
         int size = (count != null && count > 0) ? count : 10000;
 
-        List<Person> persons = new ArrayList<>(size);
-
-        for (int i = 0; i < size; i++) {
-            Person person = new Person();
-            person.setName(firstNames[random.nextInt(firstNames.length)]);
-            person.setLastName(lastNames[random.nextInt(lastNames.length)]);
-            person.setAge(random.nextInt(80) + 18);
-            person.setHeight(1.50 + random.nextDouble() * 0.50);
-            person.setWeight(50.0 + random.nextDouble() * 50.0);
-            person.setBirthDate(new Date(System.currentTimeMillis() - (person.getAge() * 365L * 24L * 60L * 60L * 1000L)));
-            persons.add(person);
+        if (seed != null && corpusCache.accepts((long) size * ESTIMATED_PERSON_BYTES)) {
+            byte[] corpus = corpusCache.get(new CorpusKey(seed, size),
+                    () -> serialize(personGenerator.generate(size, seed)));
+            return Response.ok(corpus, MediaType.APPLICATION_JSON_TYPE).build();
         }
 
-        return persons;
+        return Response.ok(personGenerator.generate(size, seed), MediaType.APPLICATION_JSON_TYPE).build();
+    }
+
+    /**
+     * Carga en el repositorio de personas un conjunto sintético generado en paralelo.
+     * <p>
+     * Pensado para pruebas de capacidad con millones de registros: las personas se
+     * guardan a medida que se generan, sin construir antes la lista completa.
+     *
+     * @param count Número de personas a cargar
+     * @param seed Semilla opcional para obtener siempre los mismos datos
+     * @return Respuesta HTTP con el número de personas cargadas y el tiempo empleado
+     */
+    @POST
+    @Path("/persons/seed")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response seedPersons(@QueryParam("count") Integer count, @QueryParam("seed") Long seed) {
+        int size = (count != null && count > 0) ? count : 10000;
+
+        long start = System.nanoTime();
+        personGenerator.generateInto(size, seed, (index, person) -> personService.create(person));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("generated", size);
+        result.put("elapsedMillis", elapsedMillis);
+        return Response.ok(result).build();
     }
 
+    /**
+     * Genera y escribe las personas una a una directamente sobre la respuesta.
+     * <p>
+     * A diferencia de {@link #getPersons(Integer, Long)}, nunca se materializa la lista completa:
+     * cada persona se serializa y queda disponible para el recolector de basura antes de
+     * generar la siguiente, por lo que la memoria usada no depende de {@code count}.
+     * El primer elemento se envía en cuanto se genera y después se vacía el buffer
+     * cada {@value #STREAM_FLUSH_INTERVAL} elementos.
+     *
+     * @param count Número de personas a generar
+     * @param seed Semilla opcional para obtener siempre los mismos datos
+     * @param format {@code array} para un array JSON por chunks o {@code ndjson} para una persona por línea
+     * @return Respuesta en streaming con las personas generadas
+     */
+    @GET
+    @Path("/persons/stream")
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_NDJSON})
+    public Response streamPersons(@QueryParam("count") Integer count,
+                                  @QueryParam("seed") Long seed,
+                                  @QueryParam("format") @DefaultValue("array") String format) {
+        int size = (count != null && count > 0) ? count : 10000;
+        Iterator<Person> persons = personGenerator.iterator(size, seed);
+        boolean ndjson = "ndjson".equalsIgnoreCase(format);
+
+        ObjectWriter writer = objectMapper.writerFor(Person.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        ObjectWriter elementWriter = ndjson ? writer.withRootValueSeparator("\n") : writer;
+
+        StreamingOutput body = output -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(output)) {
+                if (!ndjson) {
+                    json.writeStartArray();
+                }
+                for (int i = 0; persons.hasNext(); i++) {
+                    elementWriter.writeValue(json, persons.next());
+                    if (i == 0 || (i + 1) % STREAM_FLUSH_INTERVAL == 0) {
+                        json.flush();
+                    }
+                }
+                if (ndjson) {
+                    json.writeRaw('\n');
+                } else {
+                    json.writeEndArray();
+                }
+            }
+        };
+
+        return Response.ok(body, ndjson ? APPLICATION_NDJSON : MediaType.APPLICATION_JSON).build();
+    }
+
+    /**
+     * Devuelve un objeto grande en JSON o, si el cliente lo prefiere, en binario.
+     * <p>
+     * La representación {@code application/octet-stream} evita tanto el {@code int[]} intermedio
+     * como la codificación a texto: los enteros se generan directamente sobre un
+     * {@link ByteBuffer} del heap reutilizado del pool, que se copia una vez en el buffer de
+     * salida del servidor (no es una escritura sin copias). Formato (little-endian):
+     * <pre>
+     *   long id | long timestamp | int length | int[length] data
+     * </pre>
+     * JSON sigue siendo la representación por defecto cuando el cliente acepta ambas.
+     *
+     * @param request Petición usada para negociar la representación
+     * @return Respuesta con el objeto en la representación negociada
+     */
     @GET
     @Path("/large-object")
-    @Produces(MediaType.APPLICATION_JSON)
-    public LargeObject getLargeObject() {
+    @Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_OCTET_STREAM})
+    public Response getLargeObject(@Context Request request) {
+        Variant variant = request.selectVariant(LARGE_OBJECT_VARIANTS);
+        if (variant == null) {
+            return Response.notAcceptable(LARGE_OBJECT_VARIANTS).build();
+        }
+        if (MediaType.APPLICATION_JSON_TYPE.isCompatible(variant.getMediaType())) {
+            return Response.ok(newLargeObject(), MediaType.APPLICATION_JSON_TYPE).build();
+        }
+
+        // El buffer se obtiene y se devuelve dentro de la escritura: si la respuesta no llega a
+        // escribirse (cliente desconectado, error previo), no queda ningún buffer sin devolver
+        StreamingOutput body = output -> {
+            ByteBuffer buffer = largeObjectBuffers.acquire();
+            try {
+                ThreadLocalRandom threadRandom = ThreadLocalRandom.current();
+                buffer.putLong(threadRandom.nextLong());
+                buffer.putLong(System.currentTimeMillis());
+                buffer.putInt(LARGE_OBJECT_LENGTH);
+                IntBuffer data = buffer.asIntBuffer();
+                for (int i = 0; i < LARGE_OBJECT_LENGTH; i++) {
+                    data.put(threadRandom.nextInt());
+                }
+                buffer.position(buffer.position() + LARGE_OBJECT_LENGTH * Integer.BYTES);
+                buffer.flip();
+
+                output.write(buffer.array(), buffer.arrayOffset(), buffer.limit());
+            } finally {
+                largeObjectBuffers.release(buffer);
+            }
+        };
+
+        return Response.ok(body, MediaType.APPLICATION_OCTET_STREAM_TYPE)
+                .header(HttpHeaders.CONTENT_LENGTH, largeObjectBuffers.getBufferSize())
+                .build();
+    }
+
+    private LargeObject newLargeObject() {
+        ThreadLocalRandom threadRandom = ThreadLocalRandom.current();
         LargeObject obj = new LargeObject();
-        obj.setId(random.nextLong());
+        obj.setId(threadRandom.nextLong());
         obj.setTimestamp(System.currentTimeMillis());
 
-        int[] largeArray = new int[2_500_000];
+        int[] largeArray = new int[LARGE_OBJECT_LENGTH];
         for (int i = 0; i < largeArray.length; i++) {
-            largeArray[i] = random.nextInt();
+            largeArray[i] = threadRandom.nextInt();
         }
         obj.setData(largeArray);
 
         return obj;
     }
 
+    private byte[] serialize(List<Person> persons) {
+        try {
+            return objectMapper.writeValueAsBytes(persons);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @Data
     public static class LargeObject {
         private long id;
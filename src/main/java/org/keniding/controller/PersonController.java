@@ -1,13 +1,32 @@
 package org.keniding.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.keniding.config.ExecutionDispatcher;
+import org.keniding.dto.PersonChangeEvent;
+import org.keniding.enums.ExecutionModel;
 import org.keniding.model.Person;
+import org.keniding.service.PersonChangeFeed;
 import org.keniding.service.PersonService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -17,16 +36,57 @@ import java.util.List;
  * entidades Person, siguiendo los principios de una API RESTful.
  * <p>
  * Todos los endpoints producen y consumen datos en formato JSON.
+ * <p>
+ * Los datos están en memoria, así que por defecto los endpoints se ejecutan en el event loop
+ * ({@code persons.execution-model}). Con la persistencia activada las escrituras esperan a que
+ * el log llegue a disco y, si el modelo es el event loop, pasan al pool de workers. Los lotes
+ * en NDJSON leen el cuerpo de forma bloqueante y siempre se ejecutan en un worker.
  */
 @Path("/api/persons")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class PersonController {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     /**
      * Servicio que implementa la lógica de negocio para entidades Person.
      */
     private final PersonService personService;
 
+    /**
+     * Feed de cambios que se expone por Server-Sent Events.
+     */
+    private final PersonChangeFeed changeFeed;
+
+    /**
+     * Lector de personas para los lotes en NDJSON, que se deserializan línea a línea.
+     */
+    private final ObjectReader personReader;
+
+    /**
+     * Ejecuta los endpoints en el hilo que indica la configuración.
+     */
+    private final ExecutionDispatcher dispatcher;
+
+    /**
+     * Modelo de ejecución de las lecturas.
+     */
+    private final ExecutionModel executionModel;
+
+    /**
+     * Modelo de ejecución de las escrituras, que bloquean si hay persistencia en disco.
+     */
+    private final ExecutionModel writeModel;
+
+    /**
+     * Modelo de ejecución de las lecturas cuyo coste crece con el número de personas: la lista
+     * completa, las búsquedas por índice (un rango amplio devuelve casi todo) y las estadísticas.
+     * Nunca es el event loop: recorrer millones de registros ahí detendría todas las demás
+     * peticiones de ese hilo mientras dura.
+     */
+    private final ExecutionModel scanModel;
+
     /**
      * Constructor que inicializa el controlador con su servicio.
      * <p>
@@ -34,25 +94,134 @@ public class PersonController {
      * una instancia del PersonService.
      *
      * @param personService El servicio de personas a utilizar
+     * @param objectMapper El ObjectMapper de la aplicación, para leer lotes en NDJSON
+     * @param changeFeed El feed de cambios de personas
+     * @param dispatcher El ejecutor de endpoints según el modelo configurado
+     * @param executionModel El modelo de ejecución configurado para este controlador
+     * @param persistent Si las escrituras se registran en disco antes de responder
      */
     @Inject
-    public PersonController(PersonService personService) {
+    public PersonController(PersonService personService, ObjectMapper objectMapper, PersonChangeFeed changeFeed,
+                            ExecutionDispatcher dispatcher,
+                            @ConfigProperty(name = "persons.execution-model", defaultValue = "event-loop")
+                            ExecutionModel executionModel,
+                            @ConfigProperty(name = "persons.persistence.enabled", defaultValue = "false")
+                            boolean persistent) {
         this.personService = personService;
+        this.changeFeed = changeFeed;
+        this.personReader = objectMapper.readerFor(Person.class);
+        this.dispatcher = dispatcher;
+        this.executionModel = executionModel;
+        this.writeModel = persistent && executionModel == ExecutionModel.EVENT_LOOP
+                ? ExecutionModel.WORKER
+                : executionModel;
+        this.scanModel = executionModel == ExecutionModel.EVENT_LOOP ? ExecutionModel.WORKER : executionModel;
     }
 
     /**
-     * Recupera todas las personas.
+     * Recupera todas las personas o, si se indica algún filtro, solo las que lo cumplen.
      * <p>
      * Endpoint: GET /api/persons
+     * <p>
+     * Los filtros se resuelven con los índices secundarios del repositorio, sin recorrer
+     * todas las personas:
+     * <ul>
+     *   <li>{@code ?lastName=} apellido exacto</li>
+     *   <li>{@code ?minAge=&maxAge=} rango de edad (ambos inclusive, cualquiera opcional)</li>
+     *   <li>{@code ?bornFrom=&bornTo=} rango de fecha de nacimiento en formato ISO (yyyy-MM-dd)</li>
+     * </ul>
+     * Sin filtros, si se indica {@code ?limit=} o {@code ?cursor=} la respuesta es una página
+     * ordenada por ID con el cursor opaco {@code next} para pedir la siguiente; sin ninguno
+     * de los dos se mantiene la lista completa por compatibilidad.
+     * <p>
+     * Solo la página, de tamaño acotado, usa el modelo configurado aunque sea el event loop;
+     * la lista completa y los filtros se ejecutan fuera de él.
      *
-     * @return Respuesta HTTP con código 200 (OK) y la lista de personas en formato JSON
+     * @param lastName Apellido exacto (opcional)
+     * @param minAge Edad mínima (opcional)
+     * @param maxAge Edad máxima (opcional)
+     * @param bornFrom Fecha de nacimiento mínima (opcional)
+     * @param bornTo Fecha de nacimiento máxima (opcional)
+     * @param cursor Cursor {@code next} de la página anterior (opcional)
+     * @param limit Tamaño de página; por defecto 100 si solo se indica el cursor (opcional)
+     * @return Respuesta HTTP con código 200 (OK) y la lista o página de personas en formato JSON
      */
     @GET
-    public Response getPersons() {
-        List<Person> persons = personService.findAll();
-        return Response.status(Response.Status.OK)
-                .entity(persons)
-                .build();
+    public Uni<Response> getPersons(@QueryParam("lastName") String lastName,
+                                    @QueryParam("minAge") Integer minAge,
+                                    @QueryParam("maxAge") Integer maxAge,
+                                    @QueryParam("bornFrom") LocalDate bornFrom,
+                                    @QueryParam("bornTo") LocalDate bornTo,
+                                    @QueryParam("cursor") String cursor,
+                                    @QueryParam("limit") Integer limit) {
+        boolean filtered = lastName != null || minAge != null || maxAge != null || bornFrom != null || bornTo != null;
+        if (!filtered && (cursor != null || limit != null)) {
+            return dispatcher.dispatch(executionModel, () -> Response.status(Response.Status.OK)
+                    .entity(personService.page(cursor, limit != null ? limit : DEFAULT_PAGE_SIZE))
+                    .build());
+        }
+        return dispatcher.dispatch(scanModel, () -> {
+            List<Person> persons = filtered
+                    ? personService.search(lastName, minAge, maxAge, bornFrom, bornTo)
+                    : personService.findAll();
+            return Response.status(Response.Status.OK)
+                    .entity(persons)
+                    .build();
+        });
+    }
+
+    /**
+     * Calcula estadísticas agregadas de las personas almacenadas.
+     * <p>
+     * Endpoint: GET /api/persons/stats
+     * <p>
+     * Devuelve, por franjas de edad de {@code bandWidth} años, el número de personas y su
+     * peso, altura e IMC medios, además de la distribución por categorías de IMC. Recorre
+     * todas las personas, así que nunca se ejecuta en el event loop.
+     *
+     * @param bandWidth Anchura en años de cada franja de edad (por defecto 10)
+     * @param bornFrom Fecha de nacimiento mínima (opcional)
+     * @param bornTo Fecha de nacimiento máxima (opcional)
+     * @return Respuesta HTTP con código 200 (OK) y las estadísticas en formato JSON
+     */
+    @GET
+    @Path("/stats")
+    public Uni<Response> getStats(@QueryParam("bandWidth") @DefaultValue("10") int bandWidth,
+                                  @QueryParam("bornFrom") LocalDate bornFrom,
+                                  @QueryParam("bornTo") LocalDate bornTo) {
+        return dispatcher.dispatch(scanModel, () -> Response.status(Response.Status.OK)
+                .entity(personService.stats(bandWidth, bornFrom, bornTo))
+                .build());
+    }
+
+    /**
+     * Abre un feed de Server-Sent Events con las altas, modificaciones y bajas de personas.
+     * <p>
+     * Endpoint: GET /api/persons/changes
+     * <p>
+     * Cada evento lleva como {@code id} su número de secuencia y como {@code event} el tipo de
+     * cambio. Al reconectarse, el navegador envía la cabecera {@code Last-Event-ID} y el feed
+     * continúa desde ese punto; otros clientes pueden usar {@code ?since=}. Si los eventos
+     * pedidos ya no están en el historial se recibe un evento {@code RESET}.
+     *
+     * @param lastEventId Secuencia del último evento recibido (cabecera Last-Event-ID, opcional)
+     * @param since Secuencia del último evento recibido (opcional, si no hay cabecera)
+     * @param sse Contexto SSE para construir los eventos
+     * @return Flujo de eventos de cambio
+     */
+    @GET
+    @Path("/changes")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public Multi<OutboundSseEvent> getChanges(@HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) Long lastEventId,
+                                              @QueryParam("since") Long since,
+                                              @Context Sse sse) {
+        return changeFeed.subscribe(lastEventId != null ? lastEventId : since)
+                .map(event -> sse.newEventBuilder()
+                        .id(String.valueOf(event.getSequence()))
+                        .name(event.getType().name())
+                        .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                        .data(PersonChangeEvent.class, event)
+                        .build());
     }
 
     /**
@@ -68,10 +237,10 @@ public class PersonController {
      */
     @GET
     @Path("/{id}")
-    public Response getPersonById(@PathParam("id") Long id) {
-        return Response.status(Response.Status.OK)
+    public Uni<Response> getPersonById(@PathParam("id") Long id) {
+        return dispatcher.dispatch(executionModel, () -> Response.status(Response.Status.OK)
                 .entity(personService.findById(id))
-                .build();
+                .build());
     }
 
     /**
@@ -86,11 +255,155 @@ public class PersonController {
      * @return Respuesta HTTP con código 201 (Created) y los datos de la persona creada en formato JSON
      */
     @POST
-    public Response createPerson(@Valid Person person) {
-        Person createdPerson = personService.create(person);
-        return Response.status(Response.Status.CREATED)
-                .entity(createdPerson)
-                .build();
+    public Uni<Response> createPerson(@Valid Person person) {
+        return dispatcher.dispatch(writeModel, () -> {
+            Person createdPerson = personService.create(person);
+            return Response.status(Response.Status.CREATED)
+                    .entity(createdPerson)
+                    .build();
+        });
+    }
+
+    /**
+     * Crea un lote de personas enviado como array JSON.
+     * <p>
+     * Endpoint: POST /api/persons/batch
+     * <p>
+     * Cada elemento se valida por separado y los válidos se guardan juntos, reservando de
+     * una vez el rango de IDs. Un elemento inválido no impide guardar el resto.
+     *
+     * @param persons Las personas a crear
+     * @return Respuesta HTTP con código 200 (OK) y el resultado de cada elemento
+     */
+    @POST
+    @Path("/batch")
+    public Uni<Response> createPersons(List<Person> persons) {
+        requireBody(persons);
+        return dispatcher.dispatch(writeModel, () -> Response.status(Response.Status.OK)
+                .entity(personService.createAll(persons.iterator()))
+                .build());
+    }
+
+    /**
+     * Crea un lote de personas enviado como NDJSON (una persona por línea).
+     * <p>
+     * Endpoint: POST /api/persons/batch con {@code Content-Type: application/x-ndjson}
+     * <p>
+     * El cuerpo se lee a medida que se procesa, sin cargar el lote completo en memoria.
+     * Si una línea no es JSON válido, el lote se detiene en ella: se guardan las personas
+     * válidas anteriores y la respuesta termina con un 400 para esa línea.
+     *
+     * @param body El cuerpo de la petición
+     * @return Respuesta HTTP con código 200 (OK) y el resultado de cada elemento
+     */
+    @POST
+    @Path("/batch")
+    @Consumes(APPLICATION_NDJSON)
+    public Response createPersonsNdjson(InputStream body) throws IOException {
+        try (MappingIterator<Person> persons = personReader.readValues(body)) {
+            return Response.status(Response.Status.OK)
+                    .entity(personService.createAll(ndjsonItems(persons)))
+                    .build();
+        }
+    }
+
+    /**
+     * Actualiza un lote de personas enviado como array JSON; cada elemento debe incluir su ID.
+     * <p>
+     * Endpoint: PUT /api/persons/batch
+     *
+     * @param persons Las personas a actualizar
+     * @return Respuesta HTTP con código 200 (OK) y el resultado de cada elemento
+     */
+    @PUT
+    @Path("/batch")
+    public Uni<Response> updatePersons(List<Person> persons) {
+        requireBody(persons);
+        return dispatcher.dispatch(writeModel, () -> Response.status(Response.Status.OK)
+                .entity(personService.updateAll(persons.iterator()))
+                .build());
+    }
+
+    /**
+     * Actualiza un lote de personas enviado como NDJSON; cada línea debe incluir su ID.
+     * <p>
+     * Endpoint: PUT /api/persons/batch con {@code Content-Type: application/x-ndjson}
+     * <p>
+     * Como en la creación, una línea que no es JSON válido detiene el lote después de aplicar
+     * las actualizaciones válidas anteriores.
+     *
+     * @param body El cuerpo de la petición
+     * @return Respuesta HTTP con código 200 (OK) y el resultado de cada elemento
+     */
+    @PUT
+    @Path("/batch")
+    @Consumes(APPLICATION_NDJSON)
+    public Response updatePersonsNdjson(InputStream body) throws IOException {
+        try (MappingIterator<Person> persons = personReader.readValues(body)) {
+            return Response.status(Response.Status.OK)
+                    .entity(personService.updateAll(ndjsonItems(persons)))
+                    .build();
+        }
+    }
+
+    /**
+     * Elimina un lote de personas a partir de un array JSON de IDs.
+     * <p>
+     * Endpoint: DELETE /api/persons/batch
+     *
+     * @param ids Los IDs de las personas a eliminar
+     * @return Respuesta HTTP con código 200 (OK) y el resultado de cada elemento
+     */
+    @DELETE
+    @Path("/batch")
+    public Uni<Response> deletePersons(List<Long> ids) {
+        requireBody(ids);
+        return dispatcher.dispatch(writeModel, () -> Response.status(Response.Status.OK)
+                .entity(personService.deleteAll(ids))
+                .build());
+    }
+
+    /**
+     * Un lote sin cuerpo, o con {@code null} como cuerpo, es un error del cliente.
+     */
+    private static void requireBody(List<?> items) {
+        if (items == null) {
+            throw new IllegalArgumentException("El cuerpo del lote es obligatorio");
+        }
+    }
+
+    /**
+     * Envuelve el iterador NDJSON para que los errores de Jackson, que MappingIterator envuelve
+     * en una excepción no comprobada, lleguen al servicio como
+     * {@link PersonService.MalformedItemException}.
+     */
+    private static Iterator<Person> ndjsonItems(MappingIterator<Person> persons) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return persons.hasNext();
+                } catch (RuntimeException e) {
+                    throw invalidNdjson(e);
+                }
+            }
+
+            @Override
+            public Person next() {
+                try {
+                    return persons.next();
+                } catch (RuntimeException e) {
+                    throw invalidNdjson(e);
+                }
+            }
+        };
+    }
+
+    private static RuntimeException invalidNdjson(RuntimeException e) {
+        if (e.getCause() instanceof JsonProcessingException cause) {
+            return new PersonService.MalformedItemException("NDJSON no válido: " + cause.getOriginalMessage(), e);
+        }
+        return e;
     }
 
     /**
@@ -110,11 +423,13 @@ public class PersonController {
      */
     @PUT
     @Path("/{id}")
-    public Response updatePerson(@PathParam("id") Long id, @Valid Person person) {
-        Person updatedPerson = personService.update(id, person);
-        return Response.status(Response.Status.OK)
-                .entity(updatedPerson)
-                .build();
+    public Uni<Response> updatePerson(@PathParam("id") Long id, @Valid Person person) {
+        return dispatcher.dispatch(writeModel, () -> {
+            Person updatedPerson = personService.update(id, person);
+            return Response.status(Response.Status.OK)
+                    .entity(updatedPerson)
+                    .build();
+        });
     }
 
     /**
@@ -130,8 +445,10 @@ public class PersonController {
      */
     @DELETE
     @Path("/{id}")
-    public Response deletePerson(@PathParam("id") Long id) {
-        personService.delete(id);
-        return Response.status(Response.Status.NO_CONTENT).build();
+    public Uni<Response> deletePerson(@PathParam("id") Long id) {
+        return dispatcher.dispatch(writeModel, () -> {
+            personService.delete(id);
+            return Response.status(Response.Status.NO_CONTENT).build();
+        });
     }
 }
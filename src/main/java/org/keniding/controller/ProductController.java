@@ -1,76 +1,196 @@
 package org.keniding.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.smallrye.mutiny.Uni;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.keniding.config.ExecutionDispatcher;
 import org.keniding.dto.PagedResponse;
+import org.keniding.dto.ProductFilter;
+import org.keniding.enums.ExecutionModel;
 import org.keniding.enums.ProductCategory;
 import org.keniding.model.Product;
+import org.keniding.service.ProductCounter;
+import org.keniding.service.ProductCsvReader;
+import org.keniding.service.ProductExportService;
+import org.keniding.service.ProductImportService;
 import org.keniding.service.ProductService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Controlador REST para la gestión de productos.
+ * <p>
+ * Los endpoints consultan la base de datos por JDBC y bloquean mientras responde, así que por
+ * defecto se ejecutan en hilos virtuales ({@code products.execution-model}): cada petición
+ * espera en su propio hilo virtual sin ocupar uno del pool de workers. La importación y la
+ * exportación leen o escriben el cuerpo en streaming y siempre se ejecutan en un worker.
  */
 @Path("/api/products")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class ProductController {
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final String TEXT_CSV = "text/csv";
+
     private final ProductService productService;
+    private final ProductImportService importService;
+    private final ProductExportService exportService;
+    private final ProductCounter productCounter;
+    private final ObjectReader productReader;
+    private final ExecutionDispatcher dispatcher;
+    private final ExecutionModel executionModel;
 
     @Inject
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductImportService importService,
+                             ProductExportService exportService, ProductCounter productCounter,
+                             ObjectMapper objectMapper, ExecutionDispatcher dispatcher,
+                             @ConfigProperty(name = "products.execution-model", defaultValue = "virtual-thread")
+                             ExecutionModel executionModel) {
         this.productService = productService;
+        this.importService = importService;
+        this.exportService = exportService;
+        this.productCounter = productCounter;
+        this.productReader = objectMapper.readerFor(Product.class);
+        this.dispatcher = dispatcher;
+        this.executionModel = executionModel;
     }
 
     /**
      * Recupera productos con paginación y ordenamiento.
+     * <p>
+     * Con {@code pagination=keyset} no se usa OFFSET: la respuesta incluye un cursor
+     * {@code next} que se pasa en {@code after} para pedir la página siguiente, y el coste
+     * no depende de la profundidad. En ese modo solo se admite ordenar por name, price o id,
+     * se ignora {@code page} y no se admiten {@code fields} ni filtros (nombre, categoría,
+     * rango de precio o un estado distinto de activo): esas combinaciones responden 400.
+     * El modo por defecto, {@code offset}, mantiene la respuesta paginada por número de página.
+     * <p>
+     * Si solo se busca por nombre se usa el índice de trigramas y los resultados se ordenan por
+     * relevancia. En cualquier otra combinación de filtros (nombre, categoría, rango de precio
+     * y estado) se ejecuta una única consulta paginada y ordenada, con su consulta de conteo.
+     * <p>
+     * Con {@code fields=id,name,price} solo se consultan y devuelven esos campos. En ese caso
+     * también la búsqueda por nombre se resuelve con esa consulta en lugar del índice.
+     * <p>
+     * {@code count} elige cómo se calcula {@code totalElements} en esas consultas: exact,
+     * cached, estimated o none (sin total, solo {@code hasNext}). Por defecto se usa
+     * {@code products.count.strategy}. La respuesta indica la estrategia aplicada.
      *
      * @param page Número de página (empieza en 0)
      * @param size Tamaño de la página
      * @param sort Campo por el que ordenar
      * @param asc Orden ascendente (true) o descendente (false)
-     * @param name Filtro por nombre (opcional)
+     * @param name Búsqueda por nombre en el índice de trigramas, paginada y por relevancia (opcional)
      * @param category Filtro por categoría (opcional)
+     * @param minPrice Precio mínimo inclusive (opcional)
+     * @param maxPrice Precio máximo inclusive (opcional)
+     * @param active Estado: true (por defecto), false o all
+     * @param fields Campos a devolver separados por comas (opcional)
+     * @param count Estrategia de conteo del total (opcional)
+     * @param pagination Modo de paginación: offset (por defecto) o keyset; otro valor responde 400
+     * @param after Cursor de la página anterior en modo keyset (opcional)
      * @return Respuesta paginada con productos
      */
     @GET
-    public Response getProducts(
+    public Uni<Response> getProducts(
             @QueryParam("page") @DefaultValue("0") int page,
             @QueryParam("size") @DefaultValue("10") int size,
             @QueryParam("sort") @DefaultValue("name") String sort,
             @QueryParam("asc") @DefaultValue("true") boolean asc,
             @QueryParam("name") String name,
-            @QueryParam("category") String category) {
-
-        List<Product> products;
-        long totalElements;
+            @QueryParam("category") String category,
+            @QueryParam("minPrice") BigDecimal minPrice,
+            @QueryParam("maxPrice") BigDecimal maxPrice,
+            @QueryParam("active") @DefaultValue("true") String active,
+            @QueryParam("fields") String fields,
+            @QueryParam("count") String count,
+            @QueryParam("pagination") @DefaultValue("offset") String pagination,
+            @QueryParam("after") String after) {
 
-        if (name != null && !name.trim().isEmpty()) {
-            products = productService.findByNameContaining(name);
-            totalElements = products.size();
-        } else if (category != null && !category.trim().isEmpty()) {
+        return dispatcher.dispatch(executionModel, () -> {
+            ProductFilter filter = new ProductFilter();
+            filter.setName(name);
+            filter.setMinPrice(minPrice);
+            filter.setMaxPrice(maxPrice);
             try {
-                ProductCategory categoryEnum = ProductCategory.valueOf(category.toUpperCase());
-                products = productService.findByCategory(categoryEnum);
-                totalElements = products.size();
+                filter.setActive(ProductFilter.parseActive(active));
             } catch (IllegalArgumentException e) {
                 return Response.status(Response.Status.BAD_REQUEST)
-                        .entity("Categoría no válida: " + category)
+                        .entity(e.getMessage())
                         .build();
             }
-        } else {
-            products = productService.findAll(page, size, sort, asc);
-            totalElements = productService.count();
-        }
+            if (category != null && !category.trim().isEmpty()) {
+                try {
+                    filter.setCategory(ProductCategory.valueOf(category.toUpperCase()));
+                } catch (IllegalArgumentException e) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity("Categoría no válida: " + category)
+                            .build();
+                }
+            }
 
-        PagedResponse<Product> response = PagedResponse.of(products, totalElements, page, size);
+            boolean hasFields = fields != null && !fields.trim().isEmpty();
+            if ("keyset".equalsIgnoreCase(pagination)) {
+                if (hasFields || filter.hasName() || filter.hasCriteriaBesidesName()) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                            .entity("La paginación keyset no admite fields ni filtros")
+                            .build();
+                }
+                return Response.ok(productService.findAllKeyset(after, size, sort, asc)).build();
+            } else if (!"offset".equalsIgnoreCase(pagination)) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("Modo de paginación no válido: " + pagination)
+                        .build();
+            }
 
-        return Response.ok(response).build();
+            if (hasFields) {
+                List<String> fieldList = Arrays.stream(fields.split(","))
+                        .map(String::trim)
+                        .filter(field -> !field.isEmpty())
+                        .distinct()
+                        .toList();
+                return Response.ok(productService.findFieldsByFilter(filter, fieldList, page, size, sort, asc,
+                        productCounter.resolve(count))).build();
+            } else if (filter.hasName() && !filter.hasCriteriaBesidesName()) {
+                return Response.ok(productService.search(name, page, size)).build();
+            }
+            PagedResponse<Product> response = productService.findByFilter(filter, page, size, sort, asc,
+                    productCounter.resolve(count));
+
+            return Response.ok(response).build();
+        });
+    }
+
+    /**
+     * Exporta todos los productos activos en streaming.
+     * <p>
+     * Los productos se leen con un cursor de solo avance y se escriben en la respuesta según
+     * se leen, así que exportar millones de filas usa memoria constante.
+     *
+     * @param format {@code ndjson} (por defecto) o {@code csv}
+     * @return Respuesta en streaming con los productos
+     */
+    @GET
+    @Path("/export")
+    @Produces({APPLICATION_NDJSON, TEXT_CSV})
+    public Response exportProducts(@QueryParam("format") @DefaultValue("ndjson") String format) {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        StreamingOutput body = csv ? exportService::exportCsv : exportService::exportNdjson;
+        return Response.ok(body, csv ? TEXT_CSV : APPLICATION_NDJSON).build();
     }
 
     /**
@@ -81,9 +201,11 @@ public class ProductController {
      */
     @GET
     @Path("/{id}")
-    public Response getProductById(@PathParam("id") Long id) {
-        Product product = productService.findById(id);
-        return Response.ok(product).build();
+    public Uni<Response> getProductById(@PathParam("id") Long id) {
+        return dispatcher.dispatch(executionModel, () -> {
+            Product product = productService.findById(id);
+            return Response.ok(product).build();
+        });
     }
 
     /**
@@ -94,12 +216,12 @@ public class ProductController {
      */
     @GET
     @Path("/sku/{sku}")
-    public Response getProductBySku(@PathParam("sku") String sku) {
-        return productService.findBySku(sku)
+    public Uni<Response> getProductBySku(@PathParam("sku") String sku) {
+        return dispatcher.dispatch(executionModel, () -> productService.findBySku(sku)
                 .map(product -> Response.ok(product).build())
                 .orElse(Response.status(Response.Status.NOT_FOUND)
                         .entity("Producto no encontrado con SKU: " + sku)
-                        .build());
+                        .build()));
     }
 
     /**
@@ -109,11 +231,53 @@ public class ProductController {
      * @return Producto creado
      */
     @POST
-    public Response createProduct(@Valid Product product) {
-        Product createdProduct = productService.create(product);
-        return Response.status(Response.Status.CREATED)
-                .entity(createdProduct)
-                .build();
+    public Uni<Response> createProduct(@Valid Product product) {
+        return dispatcher.dispatch(executionModel, () -> {
+            Product createdProduct = productService.create(product);
+            return Response.status(Response.Status.CREATED)
+                    .entity(createdProduct)
+                    .build();
+        });
+    }
+
+    /**
+     * Importa productos en bloque desde NDJSON (un producto por línea).
+     * <p>
+     * El cuerpo se lee a medida que se procesa; las filas se validan e insertan por bloques,
+     * cada uno en su propia transacción. Si una línea no es JSON válido se responde 400 y los
+     * bloques anteriores quedan importados.
+     *
+     * @param body Cuerpo de la petición
+     * @return Informe con las filas importadas y rechazadas
+     */
+    @POST
+    @Path("/import")
+    @Consumes(APPLICATION_NDJSON)
+    public Response importProductsNdjson(InputStream body) throws IOException {
+        try (MappingIterator<Product> products = productReader.readValues(body)) {
+            return Response.ok(importService.importProducts(products)).build();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof JsonProcessingException cause) {
+                throw new IllegalArgumentException("NDJSON no válido: " + cause.getOriginalMessage(), e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Importa productos en bloque desde CSV con cabecera.
+     *
+     * @param body Cuerpo de la petición
+     * @return Informe con las filas importadas y rechazadas
+     * @see ProductCsvReader
+     */
+    @POST
+    @Path("/import")
+    @Consumes(TEXT_CSV)
+    public Response importProductsCsv(InputStream body) throws IOException {
+        try (ProductCsvReader products = new ProductCsvReader(body)) {
+            return Response.ok(importService.importProducts(products)).build();
+        }
     }
 
     /**
@@ -125,9 +289,11 @@ public class ProductController {
      */
     @PUT
     @Path("/{id}")
-    public Response updateProduct(@PathParam("id") Long id, @Valid Product product) {
-        Product updatedProduct = productService.update(id, product);
-        return Response.ok(updatedProduct).build();
+    public Uni<Response> updateProduct(@PathParam("id") Long id, @Valid Product product) {
+        return dispatcher.dispatch(executionModel, () -> {
+            Product updatedProduct = productService.update(id, product);
+            return Response.ok(updatedProduct).build();
+        });
     }
 
     /**
@@ -138,9 +304,11 @@ public class ProductController {
      */
     @DELETE
     @Path("/{id}")
-    public Response deleteProduct(@PathParam("id") Long id) {
-        productService.delete(id);
-        return Response.noContent().build();
+    public Uni<Response> deleteProduct(@PathParam("id") Long id) {
+        return dispatcher.dispatch(executionModel, () -> {
+            productService.delete(id);
+            return Response.noContent().build();
+        });
     }
 
     /**
@@ -152,11 +320,13 @@ public class ProductController {
      */
     @PATCH
     @Path("/{id}/stock")
-    public Response updateStock(
+    public Uni<Response> updateStock(
             @PathParam("id") Long id,
             @QueryParam("quantity") int quantity) {
 
-        Product updatedProduct = productService.updateStock(id, quantity);
-        return Response.ok(updatedProduct).build();
+        return dispatcher.dispatch(executionModel, () -> {
+            Product updatedProduct = productService.updateStock(id, quantity);
+            return Response.ok(updatedProduct).build();
+        });
     }
 }
@@ -0,0 +1,60 @@
+package org.keniding.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResponse {
+    private int succeeded;
+    private int failed;
+    private List<ItemResult> items = new ArrayList<>();
+    /**
+     * Resultados contados en {@code succeeded} o {@code failed} que no aparecen en {@code items}.
+     */
+    private long omitted;
+
+    /**
+     * Número máximo de resultados que se guardan en {@code items}.
+     */
+    @JsonIgnore
+    private int maxItems = Integer.MAX_VALUE;
+
+    /**
+     * @param maxItems Número máximo de resultados que se detallan; el resto solo se cuenta
+     */
+    public BatchResponse(int maxItems) {
+        this.maxItems = maxItems;
+    }
+
+    public void add(ItemResult item) {
+        if (items.size() < maxItems) {
+            items.add(item);
+        } else {
+            omitted++;
+        }
+        if (item.getStatus() < 300) {
+            succeeded++;
+        } else {
+            failed++;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+        private int index;
+        private int status;
+        private Long id;
+        private String message;
+        private Map<String, String> violations;
+    }
+}
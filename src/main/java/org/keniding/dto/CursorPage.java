@@ -0,0 +1,20 @@
+package org.keniding.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private int limit;
+    private String next;
+
+    public static <T> CursorPage<T> of(List<T> content, int limit, String next) {
+        return new CursorPage<>(content, limit, next);
+    }
+}
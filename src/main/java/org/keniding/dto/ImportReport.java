@@ -0,0 +1,23 @@
+package org.keniding.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.keniding.dto.BatchResponse.ItemResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReport {
+    private long imported;
+    private long rejected;
+    private long elapsedMillis;
+    private List<ItemResult> errors = new ArrayList<>();
+    /**
+     * Motivo por el que la importación se detuvo antes del final, o null si terminó.
+     */
+    private String error;
+}
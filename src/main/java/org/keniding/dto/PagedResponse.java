@@ -3,6 +3,7 @@ package org.keniding.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.keniding.enums.CountStrategy;
 
 import java.util.List;
 
@@ -17,8 +18,19 @@ public class PagedResponse<T> {
     private int totalPages;
     private boolean last;
     private boolean first;
+    private boolean hasNext;
+    /**
+     * Estrategia con la que se obtuvo {@code totalElements}. Con {@link CountStrategy#NONE} el
+     * total y el número de páginas valen -1.
+     */
+    private CountStrategy countStrategy;
 
     public static <T> PagedResponse<T> of(List<T> content, long totalElements, int pageNumber, int pageSize) {
+        return of(content, totalElements, pageNumber, pageSize, CountStrategy.EXACT);
+    }
+
+    public static <T> PagedResponse<T> of(List<T> content, long totalElements, int pageNumber, int pageSize,
+                                          CountStrategy countStrategy) {
         PagedResponse<T> response = new PagedResponse<>();
         response.setContent(content);
         response.setTotalElements(totalElements);
@@ -29,7 +41,32 @@ public class PagedResponse<T> {
         response.setTotalPages(totalPages);
         response.setLast(pageNumber >= totalPages - 1);
         response.setFirst(pageNumber == 0);
+        response.setHasNext(pageNumber < totalPages - 1);
+        response.setCountStrategy(countStrategy);
+
+        return response;
+    }
 
+    /**
+     * Crea una respuesta sin total de elementos.
+     *
+     * @param content Elementos de la página
+     * @param hasNext Si existe al menos un elemento más allá de esta página
+     * @param pageNumber Número de página
+     * @param pageSize Tamaño de la página
+     * @return La respuesta con {@link CountStrategy#NONE}
+     */
+    public static <T> PagedResponse<T> withoutTotal(List<T> content, boolean hasNext, int pageNumber, int pageSize) {
+        PagedResponse<T> response = new PagedResponse<>();
+        response.setContent(content);
+        response.setTotalElements(-1);
+        response.setPageNumber(pageNumber);
+        response.setPageSize(pageSize);
+        response.setTotalPages(-1);
+        response.setLast(!hasNext);
+        response.setFirst(pageNumber == 0);
+        response.setHasNext(hasNext);
+        response.setCountStrategy(CountStrategy.NONE);
         return response;
     }
 }
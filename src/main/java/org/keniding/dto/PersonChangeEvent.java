@@ -0,0 +1,27 @@
+package org.keniding.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.keniding.model.Person;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PersonChangeEvent {
+    private long sequence;
+    private Type type;
+    private Long id;
+    private Person person;
+    private long timestamp;
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        /**
+         * El historial ya no contiene los eventos pedidos: el cliente debe recargar el estado completo.
+         */
+        RESET
+    }
+}
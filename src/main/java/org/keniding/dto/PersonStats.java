@@ -0,0 +1,30 @@
+package org.keniding.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PersonStats {
+    private long count;
+    private String source;
+    private List<AgeBand> ageBands;
+    private Map<String, Long> bmiDistribution;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AgeBand {
+        private int minAge;
+        private int maxAge;
+        private long count;
+        private double averageWeight;
+        private double averageHeight;
+        private double averageBmi;
+    }
+}
@@ -0,0 +1,54 @@
+package org.keniding.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.keniding.enums.ProductCategory;
+
+import java.math.BigDecimal;
+
+/**
+ * Criterios combinables para listar productos. Los campos nulos no filtran.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFilter {
+    /**
+     * Texto que debe contener el nombre, sin distinguir mayúsculas.
+     */
+    private String name;
+    private ProductCategory category;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    /**
+     * Estado del producto; null incluye activos e inactivos.
+     */
+    private Boolean active = Boolean.TRUE;
+
+    /**
+     * Interpreta el parámetro {@code active} de los listados.
+     *
+     * @param value true, false o all, sin distinguir mayúsculas
+     * @return El estado a filtrar, o null para all
+     * @throws IllegalArgumentException si el valor no es ninguno de los tres
+     */
+    public static Boolean parseActive(String value) {
+        String normalized = value != null ? value.trim() : "";
+        if ("all".equalsIgnoreCase(normalized)) {
+            return null;
+        }
+        if ("true".equalsIgnoreCase(normalized) || "false".equalsIgnoreCase(normalized)) {
+            return Boolean.valueOf(normalized);
+        }
+        throw new IllegalArgumentException("Estado no válido: " + value + " (se admite true, false o all)");
+    }
+
+    public boolean hasName() {
+        return name != null && !name.trim().isEmpty();
+    }
+
+    public boolean hasCriteriaBesidesName() {
+        return category != null || minPrice != null || maxPrice != null || !Boolean.TRUE.equals(active);
+    }
+}
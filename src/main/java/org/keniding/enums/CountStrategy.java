@@ -0,0 +1,23 @@
+package org.keniding.enums;
+
+/**
+ * Forma de calcular el total de elementos de una respuesta paginada.
+ */
+public enum CountStrategy {
+    /**
+     * COUNT(*) exacto en cada petición.
+     */
+    EXACT,
+    /**
+     * Último COUNT(*) exacto, reutilizado durante un tiempo y descartado al modificar productos.
+     */
+    CACHED,
+    /**
+     * Aproximación a partir de las estadísticas de la tabla, sin recorrer las filas.
+     */
+    ESTIMATED,
+    /**
+     * Sin total: solo se indica si hay página siguiente.
+     */
+    NONE
+}
@@ -0,0 +1,19 @@
+package org.keniding.enums;
+
+/**
+ * Hilo en el que se ejecuta un endpoint REST.
+ */
+public enum ExecutionModel {
+    /**
+     * En el propio event loop de Vert.x, sin cambio de hilo. Solo para código que nunca bloquea.
+     */
+    EVENT_LOOP,
+    /**
+     * En el pool de workers de Quarkus, acotado en número de hilos.
+     */
+    WORKER,
+    /**
+     * En un hilo virtual nuevo por petición: el código puede bloquear sin ocupar un hilo del sistema.
+     */
+    VIRTUAL_THREAD
+}
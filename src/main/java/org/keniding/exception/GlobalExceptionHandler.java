@@ -21,6 +21,12 @@ public class GlobalExceptionHandler implements ExceptionMapper<Exception> {
             return Response.status(Response.Status.NOT_FOUND).entity(errorResponse).build();
         }
 
+        if (exception instanceof IllegalArgumentException) {
+            errorResponse.put("error", "Bad Request");
+            errorResponse.put("message", exception.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(errorResponse).build();
+        }
+
         errorResponse.put("error", "Internal Server Error");
         errorResponse.put("message", exception.getMessage());
         return Response.status(Response.Status.INTERNAL_SERVER_ERROR).entity(errorResponse).build();
@@ -0,0 +1,179 @@
+package org.keniding.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Flujo que retiene los primeros bytes de la respuesta y solo empieza a comprimir
+ * con gzip cuando se supera el umbral configurado.
+ * <p>
+ * Mientras no se alcanza el umbral no se escribe nada en el destino, de modo que todavía
+ * se pueden modificar las cabeceras de la respuesta. Si la respuesta termina antes,
+ * se envía tal cual sin comprimir. Un {@link #flush()} con bytes retenidos obliga a decidir,
+ * porque quien escribe quiere que lleguen ya al cliente:
+ * <ul>
+ *   <li>con {@code syncFlush} (respuestas en streaming) se empieza a comprimir aunque no se
+ *   haya alcanzado el umbral, y el compresor se vacía con SYNC_FLUSH;</li>
+ *   <li>sin él, lo retenido se envía sin comprimir y el resto de la respuesta sigue igual.</li>
+ * </ul>
+ * Con {@code syncFlush} cada {@link #flush()} vacía también el compresor, lo que conserva
+ * la latencia del primer byte en las respuestas en streaming a costa de un ratio algo peor.
+ */
+class CompressingOutputStream extends OutputStream {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final OutputStream target;
+    private final int threshold;
+    private final int level;
+    private final boolean syncFlush;
+    private final Runnable onCompressionStart;
+
+    private ByteArrayOutputStream pending;
+    private GZIPOutputStream gzip;
+    /**
+     * Se ha decidido no comprimir: las escrituras van directamente al destino.
+     */
+    private boolean passthrough;
+    private long rawBytes;
+    private long compressedBytes;
+    private long cpuNanos;
+    private boolean finished;
+
+    CompressingOutputStream(OutputStream target, int threshold, int level, boolean syncFlush,
+                            Runnable onCompressionStart) {
+        this.target = target;
+        this.threshold = threshold;
+        this.level = level;
+        this.syncFlush = syncFlush;
+        this.onCompressionStart = onCompressionStart;
+        this.pending = new ByteArrayOutputStream(Math.min(threshold, 8192));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        rawBytes += len;
+        if (passthrough) {
+            target.write(b, off, len);
+            return;
+        }
+        if (gzip != null) {
+            long start = THREADS.getCurrentThreadCpuTime();
+            gzip.write(b, off, len);
+            cpuNanos += THREADS.getCurrentThreadCpuTime() - start;
+            return;
+        }
+        pending.write(b, off, len);
+        if (pending.size() >= threshold) {
+            startCompression();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (gzip != null) {
+            if (syncFlush) {
+                syncCompressor();
+            }
+            target.flush();
+        } else if (passthrough) {
+            target.flush();
+        } else if (pending.size() > 0 && syncFlush) {
+            // Streaming por debajo del umbral: se comprime ya para no renunciar a gzip en el resto
+            startCompression();
+            syncCompressor();
+            target.flush();
+        } else if (pending.size() > 0) {
+            // Por debajo del umbral y sin streaming: se decide no comprimir y se envía lo retenido
+            passthrough = true;
+            pending.writeTo(target);
+            pending = null;
+            target.flush();
+        }
+    }
+
+    /**
+     * Completa la respuesta sin cerrar el flujo de destino.
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (gzip != null) {
+            long start = THREADS.getCurrentThreadCpuTime();
+            gzip.finish();
+            cpuNanos += THREADS.getCurrentThreadCpuTime() - start;
+        } else if (!passthrough) {
+            pending.writeTo(target);
+            pending = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        target.close();
+    }
+
+    boolean isCompressed() {
+        return gzip != null;
+    }
+
+    long getRawBytes() {
+        return rawBytes;
+    }
+
+    long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    private void syncCompressor() throws IOException {
+        long start = THREADS.getCurrentThreadCpuTime();
+        gzip.flush();
+        cpuNanos += THREADS.getCurrentThreadCpuTime() - start;
+    }
+
+    private void startCompression() throws IOException {
+        onCompressionStart.run();
+        OutputStream counting = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                compressedBytes++;
+                target.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                compressedBytes += len;
+                target.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                target.flush();
+            }
+        };
+        long start = THREADS.getCurrentThreadCpuTime();
+        gzip = new GZIPOutputStream(counting, 8192, syncFlush) {
+            {
+                def.setLevel(level);
+            }
+        };
+        pending.writeTo(gzip);
+        cpuNanos += THREADS.getCurrentThreadCpuTime() - start;
+        pending = null;
+    }
+}
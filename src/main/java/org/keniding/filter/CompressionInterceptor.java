@@ -0,0 +1,161 @@
+package org.keniding.filter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comprime con gzip las respuestas grandes cuando el cliente lo acepta.
+ * <p>
+ * Solo se comprimen los tipos de {@code compression.media-types} y únicamente si el cuerpo
+ * supera {@code compression.threshold} bytes; por debajo, el coste de CPU no compensa.
+ * La excepción son las respuestas en streaming ({@link StreamingOutput}) con
+ * {@code compression.streaming}: su primer flush inicia gzip aunque no se haya llegado al
+ * umbral, porque el tamaño total no se conoce y el resto del flujo sí compensa comprimirlo.
+ * El resto de respuestas, como el JSON que Jackson vacía al terminar, siguen el umbral.
+ * Por cada respuesta comprimida se publican en Micrometer, etiquetados por endpoint:
+ * <ul>
+ *   <li>{@code http.server.compression.ratio}: bytes originales / bytes comprimidos</li>
+ *   <li>{@code http.server.compression.cpu}: tiempo de CPU dedicado a comprimir</li>
+ * </ul>
+ * Brotli no se ofrece porque el JDK no incluye un codificador y las librerías disponibles
+ * requieren código nativo.
+ */
+@Provider
+public class CompressionInterceptor implements WriterInterceptor {
+    private static final String GZIP = "gzip";
+
+    @ConfigProperty(name = "compression.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "compression.threshold", defaultValue = "8192")
+    int threshold;
+
+    @ConfigProperty(name = "compression.level", defaultValue = "6")
+    int level;
+
+    @ConfigProperty(name = "compression.streaming", defaultValue = "true")
+    boolean streaming;
+
+    @ConfigProperty(name = "compression.media-types",
+            defaultValue = "application/json,application/x-ndjson,text/plain,text/csv")
+    List<String> mediaTypes;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Context
+    HttpHeaders requestHeaders;
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        if (!enabled || headers.containsKey(HttpHeaders.CONTENT_ENCODING)
+                || !isCompressible(context.getMediaType()) || !acceptsGzip()) {
+            context.proceed();
+            return;
+        }
+
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        OutputStream original = context.getOutputStream();
+        boolean streamed = streaming && context.getEntity() instanceof StreamingOutput;
+        CompressingOutputStream compressing = new CompressingOutputStream(original, threshold, level, streamed, () -> {
+            headers.putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+        });
+        context.setOutputStream(compressing);
+        try {
+            context.proceed();
+            compressing.finish();
+        } finally {
+            context.setOutputStream(original);
+        }
+
+        if (compressing.isCompressed()) {
+            recordMetrics(compressing);
+        }
+    }
+
+    private boolean isCompressible(MediaType mediaType) {
+        if (mediaType == null) {
+            return false;
+        }
+        for (String type : mediaTypes) {
+            if (MediaType.valueOf(type.trim()).isCompatible(mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean acceptsGzip() {
+        List<String> values = requestHeaders.getRequestHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.trim().toLowerCase(Locale.ROOT).split(";");
+                if (parts[0].trim().equals(GZIP) && !isZeroQuality(parts)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) == 0.0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void recordMetrics(CompressingOutputStream compressing) {
+        String route = routeName();
+        DistributionSummary.builder("http.server.compression.ratio")
+                .description("Bytes originales divididos entre bytes comprimidos")
+                .tag("route", route)
+                .register(registry)
+                .record((double) compressing.getRawBytes() / Math.max(1, compressing.getCompressedBytes()));
+        Timer.builder("http.server.compression.cpu")
+                .description("Tiempo de CPU dedicado a comprimir la respuesta")
+                .tag("route", route)
+                .register(registry)
+                .record(compressing.getCpuNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private String routeName() {
+        if (resourceInfo == null || resourceInfo.getResourceMethod() == null) {
+            return "unknown";
+        }
+        return resourceInfo.getResourceClass().getSimpleName() + "." + resourceInfo.getResourceMethod().getName();
+    }
+}
@@ -7,14 +7,30 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.keniding.enums.ProductCategory;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+/**
+ * Producto del catálogo.
+ * <p>
+ * La entidad está en la caché de segundo nivel de Hibernate, igual que la correspondencia
+ * SKU -> id mediante {@link NaturalIdCache}, de modo que las búsquedas por id y por SKU no van
+ * a la base de datos mientras la fila no cambie. Las modificaciones a través de la entidad
+ * actualizan ambas entradas al confirmar la transacción; tamaño y caducidad se configuran en
+ * {@code application.properties}.
+ */
 @EqualsAndHashCode(callSuper = true)
 @Entity
-@Table(name = "products")
+@Cacheable
+@NaturalIdCache
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_active_name_id", columnList = "active, name, id"),
+        @Index(name = "idx_products_active_price_id", columnList = "active, price, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -38,6 +54,7 @@ public class Product extends PanacheEntity {
     @Column(nullable = false)
     private Integer stock;
 
+    @NaturalId(mutable = true)
     @Column(name = "sku", unique = true)
     private String sku;
 
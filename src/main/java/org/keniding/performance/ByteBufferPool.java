@@ -0,0 +1,57 @@
+package org.keniding.performance;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool acotado de {@link ByteBuffer} de tamaño fijo en el heap.
+ * <p>
+ * Los buffers son grandes (varios MB): reservarlos en cada petición supone asignaciones
+ * "humongous" en G1 y presión sobre el recolector, así que se reutilizan entre peticiones.
+ * Se guardan como mucho {@code maxBuffers}; si el pool está vacío se crea uno nuevo, que
+ * solo vuelve al pool si queda sitio.
+ * <p>
+ * Son buffers en el heap y no directos porque se escriben en un {@link java.io.OutputStream}:
+ * su contenido se copia de todos modos en el buffer de salida del servidor, y con un buffer
+ * directo esa copia pasaría además por un {@code byte[]} intermedio.
+ */
+public class ByteBufferPool {
+    private final BlockingQueue<ByteBuffer> buffers;
+    private final int bufferSize;
+
+    public ByteBufferPool(int maxBuffers, int bufferSize) {
+        this.buffers = new ArrayBlockingQueue<>(maxBuffers);
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Obtiene un buffer limpio, en orden little-endian y con el límite igual a su capacidad.
+     *
+     * @return Un buffer en el heap listo para escribir, con {@link ByteBuffer#array()} accesible
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(bufferSize);
+        }
+        buffer.clear();
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Devuelve un buffer al pool para que pueda reutilizarse; si el pool está lleno se descarta.
+     *
+     * @param buffer El buffer obtenido previamente con {@link #acquire()}
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() == bufferSize) {
+            buffers.offer(buffer);
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
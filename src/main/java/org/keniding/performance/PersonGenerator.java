@@ -0,0 +1,203 @@
+package org.keniding.performance;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.keniding.model.Person;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generador de conjuntos sintéticos de personas.
+ * <p>
+ * Los datos se generan por bloques de {@value #BLOCK_SIZE} personas. Cada bloque tiene su
+ * propio {@link SplittableRandom}, obtenido de forma ordenada a partir de la semilla raíz,
+ * así que el resultado para una semilla es siempre el mismo sin importar si se genera
+ * en un solo hilo o repartido entre varios.
+ * <p>
+ * Por encima de {@code performance.generator.parallel-threshold} personas los bloques se
+ * reparten en el {@link ForkJoinPool#commonPool()} en, como máximo,
+ * {@code performance.generator.parallelism} tareas.
+ */
+@ApplicationScoped
+public class PersonGenerator {
+    /**
+     * Fecha de referencia (2025-01-01T00:00:00Z) para las fechas de nacimiento de los corpus con semilla.
+     */
+    public static final long SEEDED_REFERENCE_MILLIS = 1_735_689_600_000L;
+
+    static final int BLOCK_SIZE = 16_384;
+    private static final long YEAR_MILLIS = 365L * 24L * 60L * 60L * 1000L;
+
+    private static final String[] FIRST_NAMES = {"Juan", "María", "Pedro", "Ana", "Luis", "Sofía", "Carlos", "Laura", "Miguel", "Elena"};
+    private static final String[] LAST_NAMES = {"García", "Rodríguez", "López", "Martínez", "González", "Pérez", "Sánchez", "Fernández", "Ramírez", "Torres"};
+
+    /**
+     * Número máximo de tareas paralelas; 0 usa el paralelismo del common pool.
+     */
+    @ConfigProperty(name = "performance.generator.parallelism", defaultValue = "0")
+    int parallelism;
+
+    @ConfigProperty(name = "performance.generator.parallel-threshold", defaultValue = "50000")
+    int parallelThreshold;
+
+    /**
+     * Genera {@code count} personas en una lista, en paralelo si el tamaño lo justifica.
+     *
+     * @param count Número de personas
+     * @param seed Semilla opcional; sin ella los datos son distintos en cada llamada
+     * @return Lista de tamaño fijo con las personas en orden de generación
+     */
+    public List<Person> generate(int count, Long seed) {
+        Person[] persons = new Person[count];
+        generateInto(count, seed, (index, person) -> persons[index] = person);
+        return Arrays.asList(persons);
+    }
+
+    /**
+     * Genera {@code count} personas entregándolas a {@code sink} sin acumularlas.
+     * <p>
+     * Si la generación es paralela, {@code sink} se invoca desde varios hilos a la vez
+     * y debe ser thread-safe; el índice indica la posición de la persona en el corpus.
+     *
+     * @param count Número de personas
+     * @param seed Semilla opcional
+     * @param sink Destino de cada persona generada
+     */
+    public void generateInto(int count, Long seed, IndexedSink sink) {
+        SplittableRandom[] blockRandoms = blockRandoms(count, seed);
+        long referenceMillis = referenceMillisFor(seed);
+
+        int maxTasks = parallelism > 0 ? parallelism : ForkJoinPool.getCommonPoolParallelism();
+        if (count < parallelThreshold || maxTasks <= 1 || blockRandoms.length == 1) {
+            for (int block = 0; block < blockRandoms.length; block++) {
+                fillBlock(block, count, blockRandoms[block], referenceMillis, sink);
+            }
+            return;
+        }
+
+        ForkJoinPool.commonPool().invoke(
+                new BlockTask(0, blockRandoms.length, Math.min(maxTasks, blockRandoms.length),
+                        count, blockRandoms, referenceMillis, sink));
+    }
+
+    /**
+     * Devuelve un iterador secuencial que genera las personas bajo demanda.
+     * <p>
+     * Produce exactamente la misma secuencia que {@link #generate(int, Long)} para la
+     * misma semilla, pero sin reservar memoria para el corpus completo.
+     *
+     * @param count Número de personas
+     * @param seed Semilla opcional
+     * @return Iterador sobre las personas generadas
+     */
+    public Iterator<Person> iterator(int count, Long seed) {
+        SplittableRandom[] blockRandoms = blockRandoms(count, seed);
+        long referenceMillis = referenceMillisFor(seed);
+
+        return new Iterator<>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < count;
+            }
+
+            @Override
+            public Person next() {
+                if (index >= count) {
+                    throw new NoSuchElementException();
+                }
+                return newPerson(blockRandoms[index++ / BLOCK_SIZE], referenceMillis);
+            }
+        };
+    }
+
+    private static SplittableRandom[] blockRandoms(int count, Long seed) {
+        SplittableRandom root = seed != null ? new SplittableRandom(seed) : new SplittableRandom();
+        int blocks = Math.max(1, (count + BLOCK_SIZE - 1) / BLOCK_SIZE);
+        SplittableRandom[] randoms = new SplittableRandom[blocks];
+        for (int i = 0; i < blocks; i++) {
+            randoms[i] = root.split();
+        }
+        return randoms;
+    }
+
+    private static long referenceMillisFor(Long seed) {
+        return seed != null ? SEEDED_REFERENCE_MILLIS : System.currentTimeMillis();
+    }
+
+    private static void fillBlock(int block, int count, SplittableRandom random, long referenceMillis, IndexedSink sink) {
+        int from = block * BLOCK_SIZE;
+        int to = Math.min(count, from + BLOCK_SIZE);
+        for (int i = from; i < to; i++) {
+            sink.accept(i, newPerson(random, referenceMillis));
+        }
+    }
+
+    /**
+     * Crea una persona usando solo los nombres precargados y aritmética sobre la fecha
+     * de referencia: la única reserva de memoria además de la persona es su {@link Date}.
+     */
+    private static Person newPerson(SplittableRandom random, long referenceMillis) {
+        int age = random.nextInt(80) + 18;
+        Person person = new Person();
+        person.setName(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+        person.setLastName(LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+        person.setAge(age);
+        person.setHeight(1.50 + random.nextDouble() * 0.50);
+        person.setWeight(50.0 + random.nextDouble() * 50.0);
+        person.setBirthDate(new Date(referenceMillis - age * YEAR_MILLIS));
+        return person;
+    }
+
+    /**
+     * Destino de las personas generadas junto con su posición en el corpus.
+     */
+    @FunctionalInterface
+    public interface IndexedSink {
+        void accept(int index, Person person);
+    }
+
+    private static final class BlockTask extends RecursiveAction {
+        private final int fromBlock;
+        private final int toBlock;
+        private final int tasks;
+        private final int count;
+        private final SplittableRandom[] blockRandoms;
+        private final long referenceMillis;
+        private final IndexedSink sink;
+
+        BlockTask(int fromBlock, int toBlock, int tasks, int count,
+                  SplittableRandom[] blockRandoms, long referenceMillis, IndexedSink sink) {
+            this.fromBlock = fromBlock;
+            this.toBlock = toBlock;
+            this.tasks = tasks;
+            this.count = count;
+            this.blockRandoms = blockRandoms;
+            this.referenceMillis = referenceMillis;
+            this.sink = sink;
+        }
+
+        @Override
+        protected void compute() {
+            if (tasks <= 1 || toBlock - fromBlock <= 1) {
+                for (int block = fromBlock; block < toBlock; block++) {
+                    fillBlock(block, count, blockRandoms[block], referenceMillis, sink);
+                }
+                return;
+            }
+            int middle = fromBlock + (toBlock - fromBlock) / 2;
+            int leftTasks = tasks / 2;
+            invokeAll(
+                    new BlockTask(fromBlock, middle, leftTasks, count, blockRandoms, referenceMillis, sink),
+                    new BlockTask(middle, toBlock, tasks - leftTasks, count, blockRandoms, referenceMillis, sink));
+        }
+    }
+}
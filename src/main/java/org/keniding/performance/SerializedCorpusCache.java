@@ -0,0 +1,85 @@
+package org.keniding.performance;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Caché LRU acotada de corpus de prueba ya serializados.
+ * <p>
+ * Los corpus generados con semilla son deterministas, así que el JSON resultante para un
+ * par (semilla, tamaño) siempre es el mismo. Guardarlo serializado permite que las
+ * llamadas repetidas de un benchmark midan solo el camino HTTP y no la generación
+ * ni la serialización de los datos.
+ * <p>
+ * La caché está limitada tanto por número de entradas como por bytes totales;
+ * al superar cualquiera de los dos límites se expulsan las entradas menos usadas.
+ */
+@ApplicationScoped
+public class SerializedCorpusCache {
+    @ConfigProperty(name = "performance.corpus-cache.max-entries", defaultValue = "16")
+    int maxEntries;
+
+    @ConfigProperty(name = "performance.corpus-cache.max-bytes", defaultValue = "268435456")
+    long maxBytes;
+
+    private final LinkedHashMap<CorpusKey, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Indica si un corpus del tamaño estimado puede llegar a almacenarse.
+     *
+     * @param estimatedBytes Tamaño estimado del corpus serializado
+     * @return true si cabe en la caché
+     */
+    public boolean accepts(long estimatedBytes) {
+        return maxEntries > 0 && estimatedBytes <= maxBytes;
+    }
+
+    /**
+     * Devuelve el corpus serializado para la clave, generándolo si no está en caché.
+     * <p>
+     * La generación se hace fuera del bloqueo; si dos peticiones fallan a la vez sobre
+     * la misma clave ambas generan el corpus y se conserva el último.
+     *
+     * @param key Semilla y tamaño del corpus
+     * @param loader Función que genera y serializa el corpus
+     * @return Los bytes del corpus serializado
+     */
+    public byte[] get(CorpusKey key, Supplier<byte[]> loader) {
+        synchronized (entries) {
+            byte[] cached = entries.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        byte[] loaded = loader.get();
+        if (loaded.length <= maxBytes) {
+            synchronized (entries) {
+                byte[] previous = entries.put(key, loaded);
+                if (previous != null) {
+                    totalBytes -= previous.length;
+                }
+                totalBytes += loaded.length;
+                evictIfNeeded();
+            }
+        }
+        return loaded;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<CorpusKey, byte[]>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && iterator.hasNext()) {
+            totalBytes -= iterator.next().getValue().length;
+            iterator.remove();
+        }
+    }
+
+    public record CorpusKey(long seed, int count) {
+    }
+}
@@ -0,0 +1,121 @@
+package org.keniding.repository;
+
+import org.keniding.dto.PersonStats;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Copia en columnas de los campos numéricos de las personas, pensada para análisis.
+ * <p>
+ * Edad, altura, peso y día de nacimiento (días desde 1970-01-01 en UTC) se guardan en arrays
+ * primitivos paralelos y densos: al eliminar una persona, la última fila ocupa su hueco.
+ * Así las agregaciones recorren memoria contigua de principio a fin, sin seguir una
+ * referencia por registro, y el prefetch del procesador se adelanta a los accesos. El filtro
+ * por fecha no es un salto: cada fila suma multiplicada por una máscara 0/1 (ver
+ * {@link PersonStatsAccumulator#addColumns}), de modo que el coste no depende de cuántas filas
+ * lo cumplan. La fila de cada ID se busca en un {@link PersonRowIndex}, sin objetos por persona.
+ * <p>
+ * Las escrituras toman el bloqueo de escritura y los recorridos el de lectura, de modo que
+ * una agregación siempre ve un estado consistente.
+ */
+class PersonColumnStore {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final PersonRowIndex rowsById = new PersonRowIndex();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] ages = new int[INITIAL_CAPACITY];
+    private double[] heights = new double[INITIAL_CAPACITY];
+    private double[] weights = new double[INITIAL_CAPACITY];
+    private int[] birthDays = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Inserta o reemplaza la fila de una persona.
+     *
+     * @param record El registro de la persona a almacenar
+     */
+    void put(PersonRecord record) {
+        lock.writeLock().lock();
+        try {
+            int row = rowsById.get(record.id());
+            if (row == PersonRowIndex.NO_ROW) {
+                ensureCapacity(size + 1);
+                row = size++;
+                rowsById.put(record.id(), row);
+            }
+            ids[row] = record.id();
+            ages[row] = record.age();
+            heights[row] = record.height();
+            weights[row] = record.weight();
+            birthDays[row] = record.birthDay();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina la fila de una persona moviendo la última fila a su posición.
+     *
+     * @param id El ID de la persona
+     */
+    void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            int row = rowsById.remove(id);
+            if (row == PersonRowIndex.NO_ROW) {
+                return;
+            }
+            int last = --size;
+            if (row != last) {
+                ids[row] = ids[last];
+                ages[row] = ages[last];
+                heights[row] = heights[last];
+                weights[row] = weights[last];
+                birthDays[row] = birthDays[last];
+                rowsById.put(ids[row], row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Calcula los agregados por franja de edad y la distribución de IMC.
+     *
+     * @param bandWidth Anchura en años de cada franja de edad
+     * @param fromDay Primer día de nacimiento incluido
+     * @param toDay Último día de nacimiento incluido
+     * @return Los agregados calculados
+     */
+    PersonStats aggregate(int bandWidth, long fromDay, long toDay) {
+        PersonStatsAccumulator accumulator = new PersonStatsAccumulator(bandWidth);
+        // Los días caben en un int; las personas sin fecha (NO_BIRTH_DAY, el mínimo de int)
+        // solo entran cuando no hay fecha inicial, como en el recorrido del mapa
+        int from = fromDay == Long.MIN_VALUE ? PersonRecord.NO_BIRTH_DAY
+                : (int) Math.min(Math.max(fromDay, PersonRecord.NO_BIRTH_DAY + 1L), Integer.MAX_VALUE);
+        int to = (int) Math.min(Math.max(toDay, Integer.MIN_VALUE), Integer.MAX_VALUE);
+        lock.readLock().lock();
+        try {
+            accumulator.addColumns(ages, heights, weights, birthDays, size, from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return accumulator.toStats("columnar");
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, newCapacity);
+        ages = Arrays.copyOf(ages, newCapacity);
+        heights = Arrays.copyOf(heights, newCapacity);
+        weights = Arrays.copyOf(weights, newCapacity);
+        birthDays = Arrays.copyOf(birthDays, newCapacity);
+    }
+}
@@ -0,0 +1,72 @@
+package org.keniding.repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongPredicate;
+
+/**
+ * Conjunto ordenado y concurrente de IDs de personas, guardado como mapa de bits por páginas.
+ * <p>
+ * Cada página cubre {@value #PAGE_IDS} IDs consecutivos con un bit por ID; las páginas se
+ * indexan en un {@link ConcurrentSkipListMap} para recorrerlas en orden a partir de cualquier
+ * ID. Como los IDs se asignan de forma secuencial, un millón de personas ocupa unos 125 KB en
+ * lugar de un nodo de lista de salto con su {@link Long} por persona.
+ * <p>
+ * Los bits se cambian con operaciones atómicas, sin bloqueos. Las páginas vacías no se
+ * eliminan: bastaría una alta concurrente para perder un bit, y con IDs secuenciales su número
+ * está acotado por el mayor ID usado.
+ */
+final class PersonIdBitmap {
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_IDS = 1 << PAGE_SHIFT;
+    private static final int PAGE_WORDS = PAGE_IDS / Long.SIZE;
+
+    private final ConcurrentNavigableMap<Long, AtomicLongArray> pages = new ConcurrentSkipListMap<>();
+
+    void add(long id) {
+        AtomicLongArray page = pages.computeIfAbsent(id >> PAGE_SHIFT, key -> new AtomicLongArray(PAGE_WORDS));
+        page.getAndAccumulate(word(id), 1L << id, (bits, mask) -> bits | mask);
+    }
+
+    void remove(long id) {
+        AtomicLongArray page = pages.get(id >> PAGE_SHIFT);
+        if (page != null) {
+            page.getAndAccumulate(word(id), ~(1L << id), (bits, mask) -> bits & mask);
+        }
+    }
+
+    /**
+     * Recorre en orden ascendente los IDs mayores o iguales que {@code fromId}.
+     * <p>
+     * El recorrido no es una instantánea: un ID añadido o eliminado durante el mismo puede
+     * aparecer o no.
+     *
+     * @param fromId Primer ID a considerar
+     * @param action Recibe cada ID; si devuelve false el recorrido se detiene
+     */
+    void forEachFrom(long fromId, LongPredicate action) {
+        for (Map.Entry<Long, AtomicLongArray> entry : pages.tailMap(fromId >> PAGE_SHIFT, true).entrySet()) {
+            long base = entry.getKey() << PAGE_SHIFT;
+            AtomicLongArray page = entry.getValue();
+            int first = base < fromId ? (int) (fromId - base) : 0;
+            for (int word = first / Long.SIZE; word < PAGE_WORDS; word++) {
+                long bits = page.get(word);
+                if (word == first / Long.SIZE) {
+                    bits &= -1L << first;
+                }
+                while (bits != 0) {
+                    if (!action.test(base + (long) word * Long.SIZE + Long.numberOfTrailingZeros(bits))) {
+                        return;
+                    }
+                    bits &= bits - 1;
+                }
+            }
+        }
+    }
+
+    private static int word(long id) {
+        return (int) (id & (PAGE_IDS - 1)) / Long.SIZE;
+    }
+}
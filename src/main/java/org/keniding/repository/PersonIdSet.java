@@ -0,0 +1,120 @@
+package org.keniding.repository;
+
+/**
+ * Conjunto de IDs de personas sobre un array de {@code long}, para los índices secundarios.
+ * <p>
+ * Usa direccionamiento abierto con sondeo lineal y, al eliminar, desplaza hacia atrás las
+ * entradas siguientes en lugar de dejar marcas de borrado. Cada ID ocupa 8 bytes del array
+ * (con una ocupación máxima del 75 %), frente al nodo y el {@link Long} que necesita cada
+ * elemento de un conjunto concurrente de objetos.
+ * <p>
+ * Las operaciones se sincronizan sobre el propio conjunto; los lectores obtienen una copia
+ * con {@link #toArray()} y la recorren sin bloquear a los escritores.
+ */
+final class PersonIdSet {
+    /**
+     * Marca de posición libre; el ID 0, si aparece, se guarda aparte.
+     */
+    private static final long FREE = 0;
+
+    private long[] slots = new long[8];
+    private boolean containsFree;
+    private int size;
+
+    synchronized boolean add(long id) {
+        if (id == FREE) {
+            if (containsFree) {
+                return false;
+            }
+            containsFree = true;
+            size++;
+            return true;
+        }
+        if ((size + 1) * 4L > slots.length * 3L) {
+            resize(slots.length * 2);
+        }
+        int mask = slots.length - 1;
+        int slot = hash(id) & mask;
+        while (slots[slot] != FREE) {
+            if (slots[slot] == id) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = id;
+        size++;
+        return true;
+    }
+
+    synchronized boolean remove(long id) {
+        if (id == FREE) {
+            if (!containsFree) {
+                return false;
+            }
+            containsFree = false;
+            size--;
+            return true;
+        }
+        int mask = slots.length - 1;
+        int gap = hash(id) & mask;
+        while (slots[gap] != id) {
+            if (slots[gap] == FREE) {
+                return false;
+            }
+            gap = (gap + 1) & mask;
+        }
+        // Cada entrada posterior de la misma secuencia ocupa el hueco si su posición ideal no
+        // está entre el hueco y ella; así ninguna búsqueda se corta antes de llegar a su ID
+        for (int slot = (gap + 1) & mask; slots[slot] != FREE; slot = (slot + 1) & mask) {
+            int home = hash(slots[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                slots[gap] = slots[slot];
+                gap = slot;
+            }
+        }
+        slots[gap] = FREE;
+        size--;
+        return true;
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Copia los IDs del conjunto, sin orden definido.
+     */
+    synchronized long[] toArray() {
+        long[] ids = new long[size];
+        int count = 0;
+        if (containsFree) {
+            ids[count++] = FREE;
+        }
+        for (long id : slots) {
+            if (id != FREE) {
+                ids[count++] = id;
+            }
+        }
+        return ids;
+    }
+
+    private void resize(int capacity) {
+        long[] previous = slots;
+        slots = new long[capacity];
+        int mask = capacity - 1;
+        for (long id : previous) {
+            if (id != FREE) {
+                int slot = hash(id) & mask;
+                while (slots[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = id;
+            }
+        }
+    }
+
+    private static int hash(long id) {
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
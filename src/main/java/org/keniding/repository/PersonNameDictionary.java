@@ -0,0 +1,66 @@
+package org.keniding.repository;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diccionario de nombres y apellidos: asigna a cada texto distinto un código entero.
+ * <p>
+ * Los nombres provienen de un vocabulario pequeño, así que guardar un código de 4 bytes por
+ * persona en lugar de una copia propia del {@link String} reduce mucho la memoria retenida;
+ * al decodificar siempre se devuelve la misma instancia canónica.
+ * <p>
+ * Los códigos no se liberan al eliminar personas. Con el vocabulario habitual el diccionario
+ * permanece pequeño; si los nombres fueran arbitrarios crecería con cada nombre distinto.
+ */
+final class PersonNameDictionary {
+    static final int NULL_CODE = -1;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private final Object appendLock = new Object();
+
+    /**
+     * Textos por código. Se publica de nuevo tras cada alta, de modo que quien obtiene un
+     * código (directamente o a través de un registro publicado después) ve su texto.
+     */
+    private volatile String[] values = new String[64];
+    private int size;
+
+    int encode(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        return codes.computeIfAbsent(value, this::append);
+    }
+
+    String decode(int code) {
+        return code == NULL_CODE ? null : values[code];
+    }
+
+    /**
+     * Busca el código de un texto sin añadirlo.
+     *
+     * @return El código, o {@link #NULL_CODE} si el texto no está en el diccionario
+     */
+    int find(String value) {
+        Integer code = value != null ? codes.get(value) : null;
+        return code != null ? code : NULL_CODE;
+    }
+
+    private int append(String value) {
+        synchronized (appendLock) {
+            String[] current = values;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = value;
+            values = current;
+            return size++;
+        }
+    }
+}
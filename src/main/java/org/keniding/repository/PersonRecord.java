@@ -0,0 +1,19 @@
+package org.keniding.repository;
+
+/**
+ * Forma compacta en que {@link PersonRepository} guarda cada persona.
+ * <p>
+ * Nombre y apellido son códigos de {@link PersonNameDictionary} y la fecha de nacimiento
+ * son días desde 1970-01-01 en UTC, de modo que un registro ocupa un único objeto con campos
+ * primitivos, sin {@link String} ni {@link java.util.Date} propios.
+ */
+record PersonRecord(long id, int name, int lastName, int age, double height, double weight, int birthDay) {
+    /**
+     * Valor de {@link #birthDay()} cuando la persona no tiene fecha de nacimiento.
+     */
+    static final int NO_BIRTH_DAY = Integer.MIN_VALUE;
+
+    boolean hasBirthDay() {
+        return birthDay != NO_BIRTH_DAY;
+    }
+}
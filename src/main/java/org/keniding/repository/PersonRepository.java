@@ -1,14 +1,34 @@
 package org.keniding.repository;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.keniding.dto.PersonChangeEvent.Type;
+import org.keniding.dto.PersonStats;
 import org.keniding.model.Person;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
 
 /**
  * Repositorio para gestionar entidades Person.
@@ -16,12 +36,20 @@ import java.util.concurrent.atomic.AtomicLong;
  * Esta clase proporciona operaciones CRUD (Crear, Leer, Actualizar, Eliminar)
  * para objetos Person, almacenándolos en memoria.
  * <p>
+ * Internamente cada persona se guarda como un {@link PersonRecord} compacto y se convierte
+ * en un Person nuevo al leerla. La fecha de nacimiento se guarda por día, así que se devuelve
+ * siempre a las 00:00 UTC de ese día.
+ * <p>
  * La anotación @ApplicationScoped significa que se creará una única instancia
  * de esta clase que será compartida por toda la aplicación.
  * Es similar al @Singleton en Spring, pero gestionado por CDI (Contexts and Dependency Injection).
  */
 @ApplicationScoped
 public class PersonRepository {
+    private static final Logger LOG = Logger.getLogger(PersonRepository.class);
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long NO_TICKET = 0;
+
     /**
      * Almacén en memoria para las entidades Person.
      * <p>
@@ -30,7 +58,49 @@ public class PersonRepository {
      * Es más eficiente que un HashMap sincronizado porque solo bloquea segmentos
      * específicos durante las operaciones, no el mapa en general.
      */
-    private final Map<Long, Person> personMap = new ConcurrentHashMap<>();
+    private final Map<Long, PersonRecord> personMap = new ConcurrentHashMap<>();
+
+    /**
+     * Diccionario compartido de nombres y apellidos de los registros.
+     */
+    private final PersonNameDictionary names = new PersonNameDictionary();
+
+    /**
+     * IDs de las personas almacenadas, en orden ascendente, para paginar por cursor.
+     * <p>
+     * El mapa principal sigue siendo un ConcurrentHashMap porque sus {@code compute} son
+     * atómicos y sobre ellos se mantienen índices y log; este mapa de bits se actualiza dentro
+     * de esos mismos {@code compute} y permite saltar al primer ID posterior a un cursor
+     * sin copiar ni ordenar el mapa, con un bit por ID en lugar de un {@link Long} y su nodo.
+     */
+    private final PersonIdBitmap idIndex = new PersonIdBitmap();
+
+    /**
+     * Índice hash por apellido: apellido -> IDs de las personas con ese apellido.
+     * <p>
+     * Las altas y bajas se hacen con {@code compute}, que en ConcurrentHashMap es atómico
+     * por clave, así que un conjunto vacío se puede eliminar sin perder inserciones concurrentes.
+     * Los conjuntos de este índice y de los siguientes son {@link PersonIdSet}, con los IDs
+     * como {@code long}.
+     */
+    private final Map<String, PersonIdSet> lastNameIndex = new ConcurrentHashMap<>();
+
+    /**
+     * Índice ordenado por edad: edad -> IDs, para consultas por rango.
+     * <p>
+     * ConcurrentSkipListMap no garantiza que {@code compute} sea atómico, por lo que las
+     * entradas vacías no se eliminan. El dominio de claves es pequeño (edades de 0 a 120),
+     * así que no supone un crecimiento de memoria relevante.
+     */
+    private final ConcurrentNavigableMap<Integer, PersonIdSet> ageIndex = new ConcurrentSkipListMap<>();
+
+    /**
+     * Índice ordenado por fecha de nacimiento, agrupado por día (días desde 1970-01-01 en UTC).
+     * <p>
+     * Como en {@link #ageIndex}, las entradas vacías se conservan; agrupar por día mantiene
+     * acotado el número de claves.
+     */
+    private final ConcurrentNavigableMap<Long, PersonIdSet> birthDayIndex = new ConcurrentSkipListMap<>();
 
     /**
      * Generador de IDs secuenciales para las entidades Person.
@@ -41,6 +111,149 @@ public class PersonRepository {
      */
     private final AtomicLong sequence = new AtomicLong(1);
 
+    /**
+     * Activa la copia en columnas de los campos numéricos para las agregaciones.
+     */
+    @ConfigProperty(name = "persons.columnar.enabled", defaultValue = "false")
+    boolean columnarEnabled;
+
+    /**
+     * Almacén en columnas; es null si no está activado.
+     */
+    private PersonColumnStore columnStore;
+
+    /**
+     * Activa la persistencia en disco mediante log de escritura anticipada y snapshots.
+     */
+    @ConfigProperty(name = "persons.persistence.enabled", defaultValue = "false")
+    boolean persistenceEnabled;
+
+    @ConfigProperty(name = "persons.persistence.directory", defaultValue = "data/persons")
+    String persistenceDirectory;
+
+    @ConfigProperty(name = "persons.persistence.segment-size", defaultValue = "67108864")
+    int segmentSize;
+
+    @ConfigProperty(name = "persons.persistence.commit-interval-ms", defaultValue = "5")
+    long commitIntervalMillis;
+
+    /**
+     * Si es true, cada escritura espera al siguiente group commit antes de responder.
+     */
+    @ConfigProperty(name = "persons.persistence.sync", defaultValue = "true")
+    boolean persistenceSync;
+
+    @ConfigProperty(name = "persons.persistence.snapshot-interval-seconds", defaultValue = "300")
+    long snapshotIntervalSeconds;
+
+    /**
+     * Log de escritura anticipada; es null si la persistencia no está activada.
+     */
+    private PersonWriteAheadLog writeAheadLog;
+    private ScheduledExecutorService snapshotScheduler;
+
+    /**
+     * Receptor de los cambios; por defecto no hace nada.
+     */
+    private volatile ChangeListener changeListener = (type, id, person) -> NO_TICKET;
+
+    /**
+     * Receptor de las altas, modificaciones y bajas aplicadas por el repositorio.
+     * <p>
+     * {@link #changed} se invoca dentro del {@code compute} que aplica el cambio, así que para
+     * un mismo ID los avisos llegan en el mismo orden en que se aplican los cambios. No debe
+     * bloquear ni acceder al repositorio. {@link #durable} se invoca después, fuera del bloqueo
+     * del mapa, cuando el cambio ya es durable: es el momento de difundirlo.
+     */
+    @FunctionalInterface
+    public interface ChangeListener {
+        /**
+         * @return Identificador del aviso para {@link #durable}, distinto de 0
+         */
+        long changed(Type type, Long id, Person person);
+
+        default void durable(long ticket) {
+        }
+    }
+
+    /**
+     * Prepara los almacenes opcionales y, si la persistencia está activada, reconstruye
+     * el mapa, los índices y la secuencia a partir del último snapshot y del log.
+     */
+    @PostConstruct
+    void init() {
+        if (columnarEnabled) {
+            columnStore = new PersonColumnStore();
+        }
+        if (persistenceEnabled) {
+            PersonWriteAheadLog log = new PersonWriteAheadLog(Path.of(persistenceDirectory), segmentSize,
+                    commitIntervalMillis, persistenceSync);
+            try {
+                PersonWriteAheadLog.Recovery recovery = log.recover(new PersonWriteAheadLog.RecoveryListener() {
+                    @Override
+                    public void put(Person person) {
+                        PersonRecord record = toRecord(person);
+                        personMap.compute(record.id(), (id, previous) -> {
+                            reindex(id, previous, record);
+                            return record;
+                        });
+                    }
+
+                    @Override
+                    public void delete(long id) {
+                        personMap.computeIfPresent(id, (key, previous) -> {
+                            reindex(key, previous, null);
+                            return null;
+                        });
+                    }
+                });
+                sequence.set(recovery.nextSequence());
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo recuperar el repositorio de personas", e);
+            }
+            writeAheadLog = log;
+
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "person-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotScheduler.scheduleWithFixedDelay(this::snapshot,
+                    snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Al parar la aplicación se escribe un último snapshot para que el siguiente arranque
+     * no tenga que reproducir el log.
+     */
+    @PreDestroy
+    void shutdown() {
+        if (writeAheadLog != null) {
+            snapshotScheduler.shutdownNow();
+            snapshot();
+            writeAheadLog.close();
+        }
+    }
+
+    private void snapshot() {
+        try {
+            writeAheadLog.snapshot(() -> personMap.values().stream().map(this::toPerson).iterator(),
+                    sequence.get());
+        } catch (IOException | RuntimeException e) {
+            LOG.error("No se pudo escribir el snapshot de personas", e);
+        }
+    }
+
+    /**
+     * Registra el receptor de los cambios aplicados a partir de ahora.
+     *
+     * @param listener Receptor de los cambios
+     */
+    public void setChangeListener(ChangeListener listener) {
+        this.changeListener = Objects.requireNonNull(listener);
+    }
+
     /**
      * Recupera todas las entidades Person almacenadas.
      * <p>
@@ -50,7 +263,35 @@ public class PersonRepository {
      * @return Lista con todas las personas almacenadas
      */
     public List<Person> findAll() {
-        return new ArrayList<>(personMap.values());
+        List<Person> persons = new ArrayList<>(personMap.size());
+        for (PersonRecord record : personMap.values()) {
+            persons.add(toPerson(record));
+        }
+        return persons;
+    }
+
+    /**
+     * Recupera una página de personas ordenadas por ID.
+     * <p>
+     * El coste depende solo del tamaño de la página, no del número de personas almacenadas.
+     *
+     * @param afterId Último ID de la página anterior, o null para empezar por el principio
+     * @param limit Número máximo de personas a devolver
+     * @return Personas con ID mayor que {@code afterId}, en orden ascendente
+     */
+    public List<Person> findPage(Long afterId, int limit) {
+        List<Person> page = new ArrayList<>(Math.max(0, Math.min(limit, 1024)));
+        if (limit <= 0 || (afterId != null && afterId == Long.MAX_VALUE)) {
+            return page;
+        }
+        idIndex.forEachFrom(afterId != null ? afterId + 1 : Long.MIN_VALUE, id -> {
+            PersonRecord record = personMap.get(id);
+            if (record != null) {
+                page.add(toPerson(record));
+            }
+            return page.size() < limit;
+        });
+        return page;
     }
 
     /**
@@ -60,8 +301,8 @@ public class PersonRepository {
      * @return Un Optional que contiene la persona si existe, o vacío si no se encuentra
      */
     public Optional<Person> findById(Long id) {
-        return Optional.ofNullable(personMap.get(id));
-        }
+        return Optional.ofNullable(personMap.get(id)).map(this::toPerson);
+    }
 
     /**
      * Guarda una nueva persona o actualiza una existente.
@@ -70,25 +311,117 @@ public class PersonRepository {
      * usando el secuenciador atómico.
      *
      * @param person La persona a guardar
-     * @return La persona guardada (con ID asignado si era nueva)
+     * @return La persona tal como ha quedado guardada (con ID asignado si era nueva)
      */
     public Person save(Person person) {
         if (person.getId() == null) {
             person.setId(sequence.getAndIncrement());
+        }
+        return store(person, false);
+    }
+
+    /**
+     * Guarda un lote de personas en una sola pasada.
+     * <p>
+     * Los IDs de las personas nuevas se reservan de una vez con un único {@code getAndAdd}
+     * sobre el secuenciador, en lugar de un incremento atómico por persona. Con persistencia
+     * activada se espera una sola vez, al group commit que cubre el lote completo.
+     *
+     * @param persons Las personas a guardar
+     * @return Las personas tal como han quedado guardadas, en el mismo orden
+     */
+    public List<Person> saveAll(List<Person> persons) {
+        int newPersons = 0;
+        for (Person person : persons) {
+            if (person.getId() == null) {
+                newPersons++;
+            }
+        }
+        long nextId = sequence.getAndAdd(newPersons);
+        List<Person> saved = new ArrayList<>(persons.size());
+        long[] lsn = new long[1];
+        ChangeListener listener = changeListener;
+        long[] tickets = new long[persons.size()];
+        for (int i = 0; i < tickets.length; i++) {
+            Person person = persons.get(i);
+            if (person.getId() == null) {
+                person.setId(nextId++);
+            }
+            PersonRecord record = toRecord(person);
+            Person stored = toPerson(record);
+            int index = i;
+            logged(() -> personMap.compute(record.id(), (id, previous) -> {
+                reindex(id, previous, record);
+                lsn[0] = logPut(stored);
+                tickets[index] = listener.changed(previous == null ? Type.CREATED : Type.UPDATED, id, stored);
+                return record;
+            }));
+            saved.add(stored);
+        }
+        awaitDurable(lsn[0], listener, tickets);
+        return saved;
     }
-        personMap.put(person.getId(), person);
-        return person;
+
+    /**
+     * Actualiza un lote de personas existentes en una sola pasada.
+     *
+     * @param persons Las personas a actualizar, con su ID
+     * @return Para cada posición, true si la persona existía y se ha actualizado
+     */
+    public boolean[] updateAll(List<Person> persons) {
+        boolean[] updated = new boolean[persons.size()];
+        long[] lsn = new long[1];
+        ChangeListener listener = changeListener;
+        long[] tickets = new long[updated.length];
+        for (int i = 0; i < updated.length; i++) {
+            PersonRecord record = toRecord(persons.get(i));
+            int index = i;
+            logged(() -> personMap.computeIfPresent(record.id(), (id, previous) -> {
+                reindex(id, previous, record);
+                Person stored = toPerson(record);
+                lsn[0] = logPut(stored);
+                tickets[index] = listener.changed(Type.UPDATED, id, stored);
+                updated[index] = true;
+                return record;
+            }));
+        }
+        awaitDurable(lsn[0], listener, tickets);
+        return updated;
+    }
+
+    /**
+     * Elimina un lote de personas en una sola pasada.
+     *
+     * @param ids Los IDs de las personas a eliminar
+     * @return Para cada posición, true si la persona existía y se ha eliminado
+     */
+    public boolean[] deleteAllById(List<Long> ids) {
+        boolean[] removed = new boolean[ids.size()];
+        long[] lsn = new long[1];
+        ChangeListener listener = changeListener;
+        long[] tickets = new long[removed.length];
+        for (int i = 0; i < removed.length; i++) {
+            int index = i;
+            logged(() -> personMap.computeIfPresent(ids.get(index), (key, previous) -> {
+                reindex(key, previous, null);
+                lsn[0] = writeAheadLog != null ? writeAheadLog.appendDelete(key) : 0;
+                tickets[index] = listener.changed(Type.DELETED, key, null);
+                removed[index] = true;
+                return null;
+            }));
+        }
+        awaitDurable(lsn[0], listener, tickets);
+        return removed;
     }
 
     /**
      * Actualiza una persona existente.
      *
      * @param person La persona a actualizar
-     * @return La persona actualizada
+     * @return La persona tal como ha quedado guardada
      */
     public Person update(Person person) {
-        personMap.replace(person.getId(), person);
-        return person;
+        return store(person, true);
     }
 
     /**
@@ -97,8 +430,95 @@ public class PersonRepository {
      * @param id El id de la persona a eliminar
      */
     public boolean deleteById(Long id) {
-        return personMap.remove(id) != null;
-}
+        boolean[] removed = new boolean[1];
+        long[] lsn = new long[1];
+        ChangeListener listener = changeListener;
+        long[] tickets = new long[1];
+        logged(() -> personMap.computeIfPresent(id, (key, previous) -> {
+            reindex(key, previous, null);
+            lsn[0] = writeAheadLog != null ? writeAheadLog.appendDelete(key) : 0;
+            tickets[0] = listener.changed(Type.DELETED, key, null);
+            removed[0] = true;
+            return null;
+        }));
+        awaitDurable(lsn[0], listener, tickets);
+        return removed[0];
+    }
+
+    /**
+     * Busca las personas con el apellido indicado usando el índice por apellido.
+     *
+     * @param lastName Apellido exacto a buscar
+     * @return Lista de personas con ese apellido, ordenada por ID
+     */
+    public List<Person> findByLastName(String lastName) {
+        PersonIdSet ids = lastNameIndex.get(lastName);
+        if (ids == null) {
+            return List.of();
+        }
+        return resolve(List.of(ids), record -> lastName.equals(names.decode(record.lastName())));
+    }
+
+    /**
+     * Busca las personas cuya edad está en el rango indicado usando el índice por edad.
+     *
+     * @param minAge Edad mínima (inclusive)
+     * @param maxAge Edad máxima (inclusive)
+     * @return Lista de personas en el rango, ordenada por ID
+     */
+    public List<Person> findByAgeBetween(int minAge, int maxAge) {
+        if (minAge > maxAge) {
+            return List.of();
+        }
+        return resolve(ageIndex.subMap(minAge, true, maxAge, true).values(),
+                record -> record.age() >= minAge && record.age() <= maxAge);
+    }
+
+    /**
+     * Busca las personas nacidas en el intervalo indicado usando el índice por fecha de nacimiento.
+     *
+     * @param from Inicio del intervalo (inclusive)
+     * @param to Fin del intervalo (inclusive)
+     * @return Lista de personas nacidas en el intervalo, ordenada por ID
+     */
+    public List<Person> findByBirthDateBetween(Date from, Date to) {
+        if (from.after(to)) {
+            return List.of();
+        }
+        long fromMillis = from.getTime();
+        long toMillis = to.getTime();
+        return resolve(birthDayIndex.subMap(epochDay(from), true, epochDay(to), true).values(),
+                record -> record.hasBirthDay()
+                        && record.birthDay() * MILLIS_PER_DAY >= fromMillis && record.birthDay() * MILLIS_PER_DAY <= toMillis);
+    }
+
+    /**
+     * Calcula agregados por franja de edad y la distribución de IMC.
+     * <p>
+     * Si el almacén en columnas está activado ({@code persons.columnar.enabled}) se recorren
+     * sus arrays primitivos; si no, se recorren los registros del mapa.
+     *
+     * @param bandWidth Anchura en años de cada franja de edad
+     * @param from Fecha de nacimiento mínima (opcional, se compara por día)
+     * @param to Fecha de nacimiento máxima (opcional, se compara por día)
+     * @return Los agregados calculados
+     */
+    public PersonStats aggregate(int bandWidth, Date from, Date to) {
+        long fromDay = from != null ? epochDay(from) : Long.MIN_VALUE;
+        long toDay = to != null ? epochDay(to) : Long.MAX_VALUE;
+        if (columnStore != null) {
+            return columnStore.aggregate(bandWidth, fromDay, toDay);
+        }
+
+        PersonStatsAccumulator accumulator = new PersonStatsAccumulator(bandWidth);
+        for (PersonRecord record : personMap.values()) {
+            long birthDay = record.hasBirthDay() ? record.birthDay() : Long.MIN_VALUE;
+            if (birthDay >= fromDay && birthDay <= toDay) {
+                accumulator.add(record.age(), record.height(), record.weight());
+            }
+        }
+        return accumulator.toStats("objects");
+    }
 
     /**
      * Verifica si existe una persona con el ID especificado.
@@ -109,4 +529,194 @@ public class PersonRepository {
     public boolean existsById(Long id) {
         return personMap.containsKey(id);
     }
+
+    /**
+     * Devuelve el número de personas almacenadas sin copiar la colección.
+     *
+     * @return Número de personas
+     */
+    public long count() {
+        return personMap.size();
+    }
+
+    /**
+     * Convierte los IDs obtenidos de los índices en personas.
+     * <p>
+     * Los índices se actualizan dentro del {@code compute} del mapa principal, pero un lector
+     * concurrente puede ver un índice un instante adelantado o atrasado respecto al mapa.
+     * Por eso cada persona se vuelve a comprobar contra el criterio antes de devolverla.
+     */
+    private List<Person> resolve(Collection<PersonIdSet> idSets, Predicate<PersonRecord> criteria) {
+        List<PersonRecord> matches = new ArrayList<>();
+        for (PersonIdSet ids : idSets) {
+            for (long id : ids.toArray()) {
+                PersonRecord record = personMap.get(id);
+                if (record != null && criteria.test(record)) {
+                    matches.add(record);
+                }
+            }
+        }
+        matches.sort(Comparator.comparingLong(PersonRecord::id));
+        List<Person> result = new ArrayList<>(matches.size());
+        for (PersonRecord record : matches) {
+            result.add(toPerson(record));
+        }
+        return result;
+    }
+
+    /**
+     * Guarda o, si {@code onlyIfPresent}, actualiza una persona que ya tiene ID.
+     */
+    private Person store(Person person, boolean onlyIfPresent) {
+        PersonRecord record = toRecord(person);
+        Person stored = toPerson(record);
+        long[] lsn = new long[1];
+        ChangeListener listener = changeListener;
+        long[] tickets = new long[1];
+        BiFunction<Long, PersonRecord, PersonRecord> apply = (id, previous) -> {
+            reindex(id, previous, record);
+            lsn[0] = logPut(stored);
+            tickets[0] = listener.changed(previous == null ? Type.CREATED : Type.UPDATED, id, stored);
+            return record;
+        };
+        logged(() -> {
+            if (onlyIfPresent) {
+                personMap.computeIfPresent(record.id(), apply);
+            } else {
+                personMap.compute(record.id(), apply);
+            }
+        });
+        awaitDurable(lsn[0], listener, tickets);
+        return stored;
+    }
+
+    private PersonRecord toRecord(Person person) {
+        return new PersonRecord(person.getId(), names.encode(person.getName()), names.encode(person.getLastName()),
+                person.getAge(), person.getHeight(), person.getWeight(),
+                person.getBirthDate() != null ? Math.toIntExact(epochDay(person.getBirthDate())) : PersonRecord.NO_BIRTH_DAY);
+    }
+
+    private Person toPerson(PersonRecord record) {
+        return new Person(record.id(), names.decode(record.name()), names.decode(record.lastName()),
+                record.age(), record.height(), record.weight(),
+                record.hasBirthDay() ? new Date(record.birthDay() * MILLIS_PER_DAY) : null);
+    }
+
+    /**
+     * Actualiza índices y almacén en columnas para el cambio de {@code previous} a {@code current}.
+     * <p>
+     * Se invoca siempre dentro del {@code compute} del mapa principal sobre la clave {@code id}.
+     */
+    private void reindex(Long id, PersonRecord previous, PersonRecord current) {
+        unindex(previous);
+        if (current != null) {
+            index(current);
+            idIndex.add(id);
+        } else {
+            idIndex.remove(id);
+        }
+        if (columnStore != null) {
+            if (current != null) {
+                columnStore.put(current);
+            } else {
+                columnStore.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Añade la persona al log. Se invoca dentro del {@code compute} del mapa principal para
+     * que el orden en el log coincida con el orden en que se aplican los cambios a cada ID.
+     */
+    private long logPut(Person person) {
+        return writeAheadLog != null ? writeAheadLog.appendPut(person) : 0;
+    }
+
+    /**
+     * Ejecuta un cambio que se aplica en memoria y se añade al log, sin que un snapshot pueda
+     * cambiar de generación entre ambos pasos.
+     */
+    private void logged(Runnable change) {
+        if (writeAheadLog == null) {
+            change.run();
+            return;
+        }
+        writeAheadLog.beginChange();
+        try {
+            change.run();
+        } finally {
+            writeAheadLog.endChange();
+        }
+    }
+
+    /**
+     * Espera a que el cambio sea durable. Se hace fuera del {@code compute} para no retener
+     * el bloqueo del mapa mientras dura la sincronización a disco.
+     */
+    private void awaitDurable(long lsn) {
+        if (writeAheadLog != null) {
+            writeAheadLog.awaitDurable(lsn);
+        }
+    }
+
+    /**
+     * Espera a que los cambios sean durables y se lo comunica al receptor. El aviso se da
+     * aunque la espera falle: el cambio ya está aplicado en memoria y, sin el aviso, el
+     * receptor no podría entregar los cambios posteriores.
+     */
+    private void awaitDurable(long lsn, ChangeListener listener, long[] tickets) {
+        try {
+            awaitDurable(lsn);
+        } finally {
+            for (long ticket : tickets) {
+                if (ticket != NO_TICKET) {
+                    listener.durable(ticket);
+                }
+            }
+        }
+    }
+
+    private void index(PersonRecord record) {
+        long id = record.id();
+        String lastName = names.decode(record.lastName());
+        if (lastName != null) {
+            lastNameIndex.compute(lastName, (key, ids) -> {
+                PersonIdSet target = ids != null ? ids : new PersonIdSet();
+                target.add(id);
+                return target;
+            });
+        }
+        ageIndex.computeIfAbsent(record.age(), key -> new PersonIdSet()).add(id);
+        if (record.hasBirthDay()) {
+            birthDayIndex.computeIfAbsent((long) record.birthDay(), key -> new PersonIdSet()).add(id);
+        }
+    }
+
+    private void unindex(PersonRecord record) {
+        if (record == null) {
+            return;
+        }
+        long id = record.id();
+        String lastName = names.decode(record.lastName());
+        if (lastName != null) {
+            lastNameIndex.computeIfPresent(lastName, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+        removeFrom(ageIndex.get(record.age()), id);
+        if (record.hasBirthDay()) {
+            removeFrom(birthDayIndex.get((long) record.birthDay()), id);
+        }
+    }
+
+    private static void removeFrom(PersonIdSet ids, long id) {
+        if (ids != null) {
+            ids.remove(id);
+        }
+    }
+
+    private static long epochDay(Date date) {
+        return Math.floorDiv(Objects.requireNonNull(date).getTime(), MILLIS_PER_DAY);
+    }
 }
@@ -0,0 +1,123 @@
+package org.keniding.repository;
+
+/**
+ * Mapa de ID de persona a fila de {@link PersonColumnStore}, con claves {@code long} y
+ * valores {@code int} en arrays paralelos.
+ * <p>
+ * Como {@link PersonIdSet}, usa direccionamiento abierto con sondeo lineal y desplaza hacia
+ * atrás las entradas al eliminar. No está sincronizado: lo protege el bloqueo del almacén.
+ */
+final class PersonRowIndex {
+    /**
+     * Valor devuelto cuando el ID no tiene fila.
+     */
+    static final int NO_ROW = -1;
+
+    /**
+     * Marca de posición libre; la fila del ID 0, si aparece, se guarda aparte.
+     */
+    private static final long FREE = 0;
+
+    private long[] keys = new long[16];
+    private int[] rows = new int[16];
+    private int freeKeyRow = NO_ROW;
+    private int size;
+
+    int get(long id) {
+        if (id == FREE) {
+            return freeKeyRow;
+        }
+        int mask = keys.length - 1;
+        for (int slot = hash(id) & mask; keys[slot] != FREE; slot = (slot + 1) & mask) {
+            if (keys[slot] == id) {
+                return rows[slot];
+            }
+        }
+        return NO_ROW;
+    }
+
+    void put(long id, int row) {
+        if (id == FREE) {
+            if (freeKeyRow == NO_ROW) {
+                size++;
+            }
+            freeKeyRow = row;
+            return;
+        }
+        if ((size + 1) * 4L > keys.length * 3L) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(id) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == id) {
+                rows[slot] = row;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = id;
+        rows[slot] = row;
+        size++;
+    }
+
+    /**
+     * Elimina un ID.
+     *
+     * @return La fila que tenía, o {@link #NO_ROW}
+     */
+    int remove(long id) {
+        if (id == FREE) {
+            int row = freeKeyRow;
+            if (row != NO_ROW) {
+                freeKeyRow = NO_ROW;
+                size--;
+            }
+            return row;
+        }
+        int mask = keys.length - 1;
+        int gap = hash(id) & mask;
+        while (keys[gap] != id) {
+            if (keys[gap] == FREE) {
+                return NO_ROW;
+            }
+            gap = (gap + 1) & mask;
+        }
+        int removed = rows[gap];
+        for (int slot = (gap + 1) & mask; keys[slot] != FREE; slot = (slot + 1) & mask) {
+            int home = hash(keys[slot]) & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                rows[gap] = rows[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = FREE;
+        size--;
+        return removed;
+    }
+
+    private void resize(int capacity) {
+        long[] previousKeys = keys;
+        int[] previousRows = rows;
+        keys = new long[capacity];
+        rows = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < previousKeys.length; i++) {
+            long id = previousKeys[i];
+            if (id != FREE) {
+                int slot = hash(id) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = id;
+                rows[slot] = previousRows[i];
+            }
+        }
+    }
+
+    private static int hash(long id) {
+        long mixed = id * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
@@ -0,0 +1,522 @@
+package org.keniding.repository;
+
+import org.jboss.logging.Logger;
+import org.keniding.model.Person;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Registro de escritura anticipada (WAL) y snapshots para {@link PersonRepository}.
+ * <p>
+ * Cada alta, modificación o baja se añade como un registro a un segmento de log proyectado
+ * en memoria ({@link MappedByteBuffer}). Los segmentos tienen tamaño fijo y se numeran por
+ * generación; al llenarse uno se abre el siguiente. Un hilo de fondo hace {@code force()}
+ * del segmento actual cada {@code commitIntervalMillis}: todas las escrituras acumuladas en
+ * ese intervalo se vuelven durables con una sola sincronización (group commit).
+ * <p>
+ * Un snapshot abre una nueva generación de log, vuelca el estado completo y después borra
+ * los snapshots y segmentos anteriores. Los registros guardan el estado completo de la
+ * persona, por lo que volver a aplicar sobre el snapshot los registros de su misma
+ * generación deja siempre el estado correcto.
+ * <p>
+ * Cada cambio se aplica en memoria y se añade al log dentro de un mismo {@code compute};
+ * quien lo hace lo delimita con {@link #beginChange()} y {@link #endChange()}. El cambio de
+ * generación del snapshot espera a que terminen los cambios en curso, de modo que todo
+ * registro escrito en una generación anterior ya está aplicado en memoria cuando se recorre
+ * el estado, y borrar esos segmentos no pierde cambios ni resucita bajas.
+ * <p>
+ * Formato de cada registro: {@code int longitud | int crc32c | payload}. En el log, una
+ * longitud 0, un registro truncado o un CRC incorrecto marcan el final del segmento. El
+ * snapshot lleva una cabecera con la generación y la secuencia de IDs y termina con una
+ * longitud 0; se escribe en un fichero temporal y se renombra de forma atómica.
+ */
+public class PersonWriteAheadLog implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(PersonWriteAheadLog.class);
+
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_DELETE = 2;
+    private static final int FRAME_HEADER_BYTES = Integer.BYTES * 2;
+    private static final int SNAPSHOT_MAGIC = 0x50534E50;
+    private static final String LOG_PREFIX = "wal-";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long commitIntervalMillis;
+    private final boolean sync;
+
+    private final Object appendLock = new Object();
+    private final Object commitLock = new Object();
+
+    /**
+     * Compartido por los cambios en curso; exclusivo durante el cambio de generación del snapshot.
+     */
+    private final ReadWriteLock generationBarrier = new ReentrantReadWriteLock();
+    private MappedByteBuffer segment;
+    private long generation;
+    private long appendedLsn;
+    private long durableLsn;
+    private volatile boolean running;
+    private Thread flusher;
+
+    /**
+     * @param directory Directorio donde se guardan log y snapshots
+     * @param segmentSize Tamaño en bytes de cada segmento de log
+     * @param commitIntervalMillis Intervalo de agrupación de las sincronizaciones a disco
+     * @param sync Si es true, {@link #awaitDurable(long)} espera a que el registro esté en disco
+     */
+    public PersonWriteAheadLog(Path directory, int segmentSize, long commitIntervalMillis, boolean sync) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.commitIntervalMillis = commitIntervalMillis;
+        this.sync = sync;
+    }
+
+    /**
+     * Receptor de los registros durante la recuperación.
+     */
+    public interface RecoveryListener {
+        void put(Person person);
+
+        void delete(long id);
+    }
+
+    /**
+     * Resultado de la recuperación: siguiente valor de la secuencia y cifras de la carga.
+     */
+    public record Recovery(long nextSequence, long snapshotRecords, long logRecords, long elapsedMillis) {
+    }
+
+    /**
+     * Reconstruye el estado a partir del último snapshot y los segmentos posteriores, y deja
+     * el log listo para añadir registros en una generación nueva.
+     *
+     * @param listener Receptor de las personas recuperadas
+     * @return Resultado de la recuperación
+     */
+    public Recovery recover(RecoveryListener listener) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+
+        long snapshotGeneration = -1;
+        long nextSequence = 1;
+        long snapshotRecords = 0;
+        long[] maxId = {0};
+        RecoveryListener tracking = new RecoveryListener() {
+            @Override
+            public void put(Person person) {
+                maxId[0] = Math.max(maxId[0], person.getId());
+                listener.put(person);
+            }
+
+            @Override
+            public void delete(long id) {
+                maxId[0] = Math.max(maxId[0], id);
+                listener.delete(id);
+            }
+        };
+
+        List<Long> snapshots = generations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        if (!snapshots.isEmpty()) {
+            snapshotGeneration = snapshots.get(snapshots.size() - 1);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Files.newInputStream(file(SNAPSHOT_PREFIX, snapshotGeneration, SNAPSHOT_SUFFIX)), 1 << 16))) {
+                if (in.readInt() != SNAPSHOT_MAGIC) {
+                    throw new IOException("Snapshot de personas no válido: generación " + snapshotGeneration);
+                }
+                in.readLong();
+                nextSequence = in.readLong();
+                byte[] payload = new byte[256];
+                for (int length = in.readInt(); length != 0; length = in.readInt()) {
+                    int crc = in.readInt();
+                    if (payload.length < length) {
+                        payload = new byte[length];
+                    }
+                    in.readFully(payload, 0, length);
+                    if (crc(payload, 0, length) != crc) {
+                        throw new IOException("CRC incorrecto en el snapshot de personas, registro " + snapshotRecords);
+                    }
+                    apply(ByteBuffer.wrap(payload, 0, length), tracking);
+                    snapshotRecords++;
+                }
+            }
+        }
+
+        long logRecords = 0;
+        long lastGeneration = snapshotGeneration;
+        for (long logGeneration : generations(LOG_PREFIX, LOG_SUFFIX)) {
+            lastGeneration = Math.max(lastGeneration, logGeneration);
+            if (logGeneration >= snapshotGeneration) {
+                logRecords += replay(file(LOG_PREFIX, logGeneration, LOG_SUFFIX), tracking);
+            }
+        }
+
+        synchronized (appendLock) {
+            openSegment(lastGeneration + 1);
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "person-wal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        Recovery recovery = new Recovery(Math.max(nextSequence, maxId[0] + 1), snapshotRecords, logRecords, elapsedMillis);
+        LOG.infof("Personas recuperadas en %d ms: %d desde snapshot, %d registros de log",
+                elapsedMillis, snapshotRecords, logRecords);
+        return recovery;
+    }
+
+    /**
+     * Añade el estado completo de una persona al log.
+     *
+     * @return Posición lógica del registro, para {@link #awaitDurable(long)}
+     */
+    public long appendPut(Person person) {
+        return append(encodePut(person));
+    }
+
+    /**
+     * Añade la baja de una persona al log.
+     *
+     * @return Posición lógica del registro, para {@link #awaitDurable(long)}
+     */
+    public long appendDelete(long id) {
+        ByteBuffer payload = ByteBuffer.allocate(1 + Long.BYTES);
+        payload.put(TYPE_DELETE).putLong(id);
+        return append(payload.array());
+    }
+
+    /**
+     * Marca el inicio de un cambio que se aplica en memoria y se añade al log. Debe cerrarse
+     * con {@link #endChange()} en el mismo hilo, después de que el cambio sea visible en memoria.
+     */
+    public void beginChange() {
+        generationBarrier.readLock().lock();
+    }
+
+    /**
+     * Marca el final de un cambio abierto con {@link #beginChange()}.
+     */
+    public void endChange() {
+        generationBarrier.readLock().unlock();
+    }
+
+    /**
+     * Espera a que el registro indicado esté sincronizado en disco, si el modo síncrono está activo.
+     * <p>
+     * No debe invocarse mientras se mantiene un bloqueo que necesiten otras escrituras:
+     * la espera dura hasta el siguiente group commit.
+     */
+    public void awaitDurable(long lsn) {
+        if (!sync) {
+            return;
+        }
+        synchronized (commitLock) {
+            while (durableLsn < lsn && running) {
+                try {
+                    commitLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Escribe un snapshot completo y elimina los snapshots y segmentos que deja obsoletos.
+     * <p>
+     * La nueva generación se abre sin cambios en curso: los que escribieron en la anterior ya
+     * están en {@code persons} y los posteriores quedan en el log nuevo, que se reproduce
+     * sobre el snapshot al recuperar.
+     *
+     * @param persons Personas a volcar; puede ser una vista concurrente del repositorio
+     * @param nextSequence Valor actual de la secuencia de IDs
+     */
+    public void snapshot(Iterable<Person> persons, long nextSequence) throws IOException {
+        long snapshotGeneration;
+        generationBarrier.writeLock().lock();
+        try {
+            synchronized (appendLock) {
+                snapshotGeneration = generation + 1;
+                openSegment(snapshotGeneration);
+            }
+        } finally {
+            generationBarrier.writeLock().unlock();
+        }
+
+        Path temporary = directory.resolve(SNAPSHOT_PREFIX + "tmp");
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(snapshotGeneration);
+            out.writeLong(nextSequence);
+            for (Person person : persons) {
+                byte[] payload = encodePut(person);
+                out.writeInt(payload.length);
+                out.writeInt(crc(payload, 0, payload.length));
+                out.write(payload);
+                count++;
+            }
+            out.writeInt(0);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file(SNAPSHOT_PREFIX, snapshotGeneration, SNAPSHOT_SUFFIX),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        for (long old : generations(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (old < snapshotGeneration) {
+                Files.deleteIfExists(file(SNAPSHOT_PREFIX, old, SNAPSHOT_SUFFIX));
+            }
+        }
+        for (long old : generations(LOG_PREFIX, LOG_SUFFIX)) {
+            if (old < snapshotGeneration) {
+                Files.deleteIfExists(file(LOG_PREFIX, old, LOG_SUFFIX));
+            }
+        }
+        LOG.debugf("Snapshot de personas escrito: generación %d, %d registros", snapshotGeneration, count);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        synchronized (commitLock) {
+            commitLock.notifyAll();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (appendLock) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+    }
+
+    private long append(byte[] payload) {
+        int frameSize = FRAME_HEADER_BYTES + payload.length;
+        if (frameSize + Integer.BYTES > segmentSize) {
+            throw new IllegalArgumentException("Registro de " + frameSize + " bytes mayor que el segmento del log");
+        }
+        int crc = crc(payload, 0, payload.length);
+        long lsn;
+        synchronized (appendLock) {
+            // Se reserva siempre espacio para una longitud 0 que marque el final del segmento
+            if (segment.remaining() < frameSize + Integer.BYTES) {
+                openSegment(generation + 1);
+            }
+            segment.putInt(payload.length).putInt(crc).put(payload);
+            lsn = appendedLsn += frameSize;
+        }
+        if (sync) {
+            synchronized (commitLock) {
+                commitLock.notifyAll();
+            }
+        }
+        return lsn;
+    }
+
+    private void flushLoop() {
+        while (running) {
+            synchronized (commitLock) {
+                while (running && durableLsn >= currentAppendedLsn()) {
+                    try {
+                        commitLock.wait(Math.max(1, commitIntervalMillis));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+            if (commitIntervalMillis > 0) {
+                try {
+                    Thread.sleep(commitIntervalMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            MappedByteBuffer current;
+            long target;
+            synchronized (appendLock) {
+                current = segment;
+                target = appendedLsn;
+            }
+            current.force();
+            synchronized (commitLock) {
+                durableLsn = Math.max(durableLsn, target);
+                commitLock.notifyAll();
+            }
+        }
+    }
+
+    private long currentAppendedLsn() {
+        synchronized (appendLock) {
+            return appendedLsn;
+        }
+    }
+
+    /**
+     * Abre un segmento nuevo; el anterior se sincroniza antes para que sus registros
+     * queden cubiertos aunque el hilo de fondo ya solo sincronice el nuevo.
+     */
+    private void openSegment(long newGeneration) {
+        try {
+            if (segment != null) {
+                segment.force();
+            }
+            try (FileChannel channel = FileChannel.open(file(LOG_PREFIX, newGeneration, LOG_SUFFIX),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            }
+            generation = newGeneration;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long replay(Path logFile, RecoveryListener listener) throws IOException {
+        long records = 0;
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] payload = new byte[256];
+            while (buffer.remaining() >= FRAME_HEADER_BYTES) {
+                int length = buffer.getInt();
+                int crc = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                if (payload.length < length) {
+                    payload = new byte[length];
+                }
+                buffer.get(payload, 0, length);
+                if (crc(payload, 0, length) != crc) {
+                    LOG.warnf("Registro corrupto en %s; se descarta el resto del segmento", logFile.getFileName());
+                    break;
+                }
+                apply(ByteBuffer.wrap(payload, 0, length), listener);
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private static void apply(ByteBuffer payload, RecoveryListener listener) {
+        byte type = payload.get();
+        long id = payload.getLong();
+        if (type == TYPE_DELETE) {
+            listener.delete(id);
+            return;
+        }
+        Person person = new Person();
+        person.setId(id);
+        person.setName(readString(payload));
+        person.setLastName(readString(payload));
+        person.setAge(payload.getInt());
+        person.setHeight(payload.getDouble());
+        person.setWeight(payload.getDouble());
+        long birthDate = payload.getLong();
+        person.setBirthDate(birthDate != Long.MIN_VALUE ? new Date(birthDate) : null);
+        listener.put(person);
+    }
+
+    private static byte[] encodePut(Person person) {
+        byte[] name = bytes(person.getName());
+        byte[] lastName = bytes(person.getLastName());
+        ByteBuffer payload = ByteBuffer.allocate(1 + Long.BYTES
+                + Integer.BYTES + length(name) + Integer.BYTES + length(lastName)
+                + Integer.BYTES + Double.BYTES * 2 + Long.BYTES);
+        payload.put(TYPE_PUT).putLong(person.getId());
+        writeString(payload, name);
+        writeString(payload, lastName);
+        payload.putInt(person.getAge())
+                .putDouble(person.getHeight())
+                .putDouble(person.getWeight())
+                .putLong(person.getBirthDate() != null ? person.getBirthDate().getTime() : Long.MIN_VALUE);
+        return payload.array();
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int length(byte[] value) {
+        return value != null ? value.length : 0;
+    }
+
+    private static void writeString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(value.length).put(value);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static int crc(byte[] data, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private Path file(String prefix, long fileGeneration, String suffix) {
+        return directory.resolve(String.format("%s%016x%s", prefix, fileGeneration, suffix));
+    }
+
+    private List<Long> generations(String prefix, String suffix) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .forEach(name -> {
+                        try {
+                            result.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()), 16));
+                        } catch (NumberFormatException ignored) {
+                            // Ficheros temporales u otros que no siguen el patrón
+                        }
+                    });
+        }
+        result.sort(Long::compare);
+        return result;
+    }
+}
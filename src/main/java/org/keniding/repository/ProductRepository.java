@@ -5,16 +5,70 @@ import io.quarkus.panache.common.Page;
 import io.quarkus.panache.common.Parameters;
 import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.Cache;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.TypedQuery;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.hibernate.query.NativeQuery;
+import org.jboss.logging.Logger;
+import org.keniding.dto.ProductFilter;
 import org.keniding.enums.ProductCategory;
 import org.keniding.model.Product;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class ProductRepository implements PanacheRepository<Product> {
+    private static final Logger LOG = Logger.getLogger(ProductRepository.class);
+
     private static final String ACTIVE_FIELD = "active";
 
+    /**
+     * Espacio de consulta que no corresponde a ninguna entidad. Al declararlo en las consultas
+     * nativas de stock, Hibernate no invalida la región de caché completa de Product y solo se
+     * desaloja el producto modificado.
+     */
+    private static final String STOCK_QUERY_SPACE = "products_stock";
+
+    @Inject
+    TransactionSynchronizationRegistry transactionRegistry;
+
+    /**
+     * Campos por los que se admite la paginación keyset: cada uno tiene un índice con el id.
+     */
+    public static final Set<String> KEYSET_SORT_FIELDS = Set.of("name", "price", "id");
+
+    /**
+     * Campos por los que se admite ordenar. El nombre del campo se inserta en la consulta,
+     * así que no puede aceptarse cualquier texto del cliente.
+     */
+    public static final Set<String> SORT_FIELDS = Set.of("id", "name", "price", "stock", "sku", "category",
+            "createdAt", "updatedAt");
+
+    /**
+     * Campos que se pueden pedir con {@code fields=}; como los de ordenación, se insertan en la consulta.
+     */
+    public static final Set<String> PROJECTION_FIELDS = Set.of("id", "name", "description", "price", "stock", "sku",
+            "category", "createdAt", "updatedAt", "imageUrl", "active");
+
     public List<Product> findAllActive() {
         return list(ACTIVE_FIELD, true);
     }
@@ -23,6 +77,178 @@ public class ProductRepository implements PanacheRepository<Product> {
         return find(ACTIVE_FIELD, sort, true).page(page).list();
     }
 
+    /**
+     * Recupera una página de productos que cumplen todos los criterios del filtro.
+     * <p>
+     * Los criterios se combinan en una sola consulta con su orden y su página, de modo que
+     * la base de datos solo devuelve las filas de la página pedida.
+     *
+     * @param filter Criterios de búsqueda
+     * @param page Página a recuperar
+     * @param sort Ordenación; los campos deben estar en {@link #SORT_FIELDS}
+     * @return Los productos de la página
+     */
+    public List<Product> findByFilter(ProductFilter filter, Page page, Sort sort) {
+        return findByFilter(filter, page.index * page.size, page.size, sort);
+    }
+
+    /**
+     * Como {@link #findByFilter(ProductFilter, Page, Sort)}, pero indicando la primera fila y el
+     * número máximo de filas. Permite pedir una fila más que el tamaño de página para saber si
+     * hay página siguiente sin contar.
+     *
+     * @param filter Criterios de búsqueda
+     * @param first Posición de la primera fila (empieza en 0)
+     * @param maxResults Número máximo de filas
+     * @param sort Ordenación; los campos deben estar en {@link #SORT_FIELDS}
+     * @return Los productos del rango
+     */
+    public List<Product> findByFilter(ProductFilter filter, int first, int maxResults, Sort sort) {
+        Map<String, Object> parameters = new HashMap<>();
+        return find(where(filter, parameters), stableSort(sort), parameters)
+                .range(first, first + maxResults - 1)
+                .list();
+    }
+
+    /**
+     * Recupera solo los campos indicados de los productos que cumplen el filtro.
+     * <p>
+     * El SELECT incluye únicamente esas columnas y el resultado son tuplas, no entidades, así
+     * que no se cargan descripciones ni URLs que el cliente no ha pedido y Hibernate no guarda
+     * nada en el contexto de persistencia ni comprueba cambios al terminar.
+     *
+     * @param filter Criterios de búsqueda, los mismos que en {@link #findByFilter(ProductFilter, Page, Sort)}
+     * @param fields Campos a devolver; deben estar en {@link #PROJECTION_FIELDS}
+     * @param first Posición de la primera fila (empieza en 0)
+     * @param maxResults Número máximo de filas
+     * @param sort Ordenación; los campos deben estar en {@link #SORT_FIELDS}
+     * @return Un mapa campo -> valor por producto, con los campos en el orden pedido
+     */
+    public List<Map<String, Object>> findFieldsByFilter(ProductFilter filter, List<String> fields,
+                                                        int first, int maxResults, Sort sort) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicarse al menos un campo");
+        }
+        for (String field : fields) {
+            if (!PROJECTION_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Campo no admitido: " + field);
+            }
+        }
+        Map<String, Object> parameters = new HashMap<>();
+        String select = fields.stream().map(field -> field + " AS " + field).collect(Collectors.joining(", "));
+        String orderBy = stableSort(sort).getColumns().stream()
+                .map(column -> column.getName() + (column.getDirection() == Sort.Direction.Descending ? " DESC" : " ASC"))
+                .collect(Collectors.joining(", "));
+        TypedQuery<Tuple> query = getEntityManager().createQuery("SELECT " + select + " FROM Product WHERE "
+                + where(filter, parameters) + " ORDER BY " + orderBy, Tuple.class);
+        parameters.forEach(query::setParameter);
+        query.setFirstResult(first);
+        query.setMaxResults(maxResults);
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : query.getResultList()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : fields) {
+                row.put(field, tuple.get(field));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Valida los campos de ordenación y añade el id como desempate si no está.
+     */
+    private static Sort stableSort(Sort sort) {
+        for (Sort.Column column : sort.getColumns()) {
+            if (!SORT_FIELDS.contains(column.getName())) {
+                throw new IllegalArgumentException("Campo de ordenación no admitido: " + column.getName());
+            }
+        }
+        if (sort.getColumns().stream().noneMatch(column -> "id".equals(column.getName()))) {
+            // Desempate estable: sin él, filas con el mismo valor podrían repetirse entre páginas
+            sort = sort.and("id");
+        }
+        return sort;
+    }
+
+    /**
+     * Cuenta los productos que cumplen todos los criterios del filtro, con la misma condición
+     * que {@link #findByFilter(ProductFilter, Page, Sort)}.
+     *
+     * @param filter Criterios de búsqueda
+     * @return Número de productos
+     */
+    public long countByFilter(ProductFilter filter) {
+        Map<String, Object> parameters = new HashMap<>();
+        return count(where(filter, parameters), parameters);
+    }
+
+    /**
+     * Construye la condición HQL del filtro y rellena sus parámetros.
+     */
+    static String where(ProductFilter filter, Map<String, Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.getActive() != null) {
+            conditions.add(ACTIVE_FIELD + " = :active");
+            parameters.put("active", filter.getActive());
+        }
+        if (filter.hasName()) {
+            conditions.add("LOWER(name) LIKE :name");
+            parameters.put("name", "%" + filter.getName().trim().toLowerCase(Locale.ROOT) + "%");
+        }
+        if (filter.getCategory() != null) {
+            conditions.add("category = :category");
+            parameters.put("category", filter.getCategory());
+        }
+        if (filter.getMinPrice() != null) {
+            conditions.add("price >= :minPrice");
+            parameters.put("minPrice", filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            conditions.add("price <= :maxPrice");
+            parameters.put("maxPrice", filter.getMaxPrice());
+        }
+        return conditions.isEmpty() ? "1 = 1" : String.join(" AND ", conditions);
+    }
+
+    /**
+     * Recupera la página de productos activos posterior a la clave ({@code sortField}, id)
+     * indicada, sin OFFSET.
+     * <p>
+     * La condición equivale a {@code (sortField, id) > (:value, :id)} (o {@code <} en orden
+     * descendente), pero se escribe expandida con OR porque MySQL no siempre aprovecha el índice
+     * con comparaciones de filas. Con los índices (active, campo, id) de {@link Product} cada
+     * página es un recorrido de rango que empieza en la clave, sea cual sea su profundidad.
+     *
+     * @param sortField Campo de ordenación; debe ser uno de {@link #KEYSET_SORT_FIELDS}
+     * @param ascending Orden ascendente (true) o descendente (false)
+     * @param lastValue Valor de {@code sortField} del último producto recibido, o null para la primera página
+     * @param lastId ID del último producto recibido, o null para la primera página
+     * @param limit Número máximo de productos
+     * @return Los productos siguientes, ordenados por ({@code sortField}, id)
+     */
+    public List<Product> findAllActiveAfter(String sortField, boolean ascending, Object lastValue, Long lastId, int limit) {
+        if (!KEYSET_SORT_FIELDS.contains(sortField)) {
+            throw new IllegalArgumentException("Campo de ordenación no admitido en paginación keyset: " + sortField);
+        }
+        Sort.Direction direction = ascending ? Sort.Direction.Ascending : Sort.Direction.Descending;
+        Sort sort = Sort.by(sortField, direction).and("id", direction);
+        if (lastId == null) {
+            return find(ACTIVE_FIELD + " = true", sort).range(0, limit - 1).list();
+        }
+
+        String comparison = ascending ? ">" : "<";
+        if ("id".equals(sortField)) {
+            return find(ACTIVE_FIELD + " = true AND id " + comparison + " :id", sort,
+                    Parameters.with("id", lastId)).range(0, limit - 1).list();
+        }
+        String query = ACTIVE_FIELD + " = true AND (" + sortField + " " + comparison + " :value"
+                + " OR (" + sortField + " = :value AND id " + comparison + " :id))";
+        return find(query, sort, Parameters.with("value", lastValue).and("id", lastId))
+                .range(0, limit - 1).list();
+    }
+
     public List<Product> findByNameContaining(String name) {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("El nombre de búsqueda no puede estar vacío");
@@ -31,13 +257,239 @@ public class ProductRepository implements PanacheRepository<Product> {
                 Parameters.with("name", "%" + name.trim() + "%"));
     }
 
+    /**
+     * Recorre el ID y el nombre de los productos activos sin cargar las entidades.
+     * <p>
+     * El stream debe cerrarse y consumirse dentro de una transacción.
+     *
+     * @return Stream de pares {ID, nombre}
+     */
+    public Stream<Object[]> streamActiveNames() {
+        return getEntityManager()
+                .createQuery("SELECT p.id, p.name FROM Product p WHERE p." + ACTIVE_FIELD + " = true", Object[].class)
+                .getResultStream();
+    }
+
+    /**
+     * Recupera los productos activos con los IDs indicados, en el mismo orden.
+     *
+     * @param ids IDs de los productos
+     * @return Los productos que existen y siguen activos, en el orden de {@code ids}
+     */
+    public List<Product> findActiveByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> byId = new HashMap<>();
+        for (Product product : list("id IN ?1 AND " + ACTIVE_FIELD + " = true", ids)) {
+            byId.put(product.id, product);
+        }
+        List<Product> ordered = new ArrayList<>(byId.size());
+        for (Long id : ids) {
+            Product product = byId.get(id);
+            if (product != null) {
+                ordered.add(product);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Devuelve cuáles de los SKU indicados ya existen, con una sola consulta.
+     *
+     * @param skus SKU a comprobar
+     * @return Los SKU que ya tiene algún producto
+     */
+    public Set<String> findExistingSkus(Collection<String> skus) {
+        if (skus.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(getEntityManager()
+                .createQuery("SELECT p.sku FROM Product p WHERE p.sku IN :skus", String.class)
+                .setParameter("skus", skus)
+                .getResultList());
+    }
+
     public List<Product> findByCategory(ProductCategory category) {
         return list("category = :category AND " + ACTIVE_FIELD + " = true",
                 Parameters.with("category", category));
     }
 
+    /**
+     * Busca un producto por su SKU a través de la caché de identificadores naturales.
+     *
+     * @param sku SKU del producto
+     * @return El producto, si existe
+     */
     public Optional<Product> findBySku(String sku) {
-        return find("sku", sku).firstResultOptional();
+        if (sku == null) {
+            return Optional.empty();
+        }
+        return getSession().bySimpleNaturalId(Product.class).loadOptional(sku);
+    }
+
+    /**
+     * Suma {@code delta} al stock de un producto con un único UPDATE condicional.
+     * <p>
+     * La comprobación de que el stock no queda negativo y el incremento se hacen en la misma
+     * sentencia, así que no hay lectura previa que pueda quedarse obsoleta: la base de datos
+     * solo retiene el bloqueo de la fila mientras dura el UPDATE.
+     *
+     * @param id ID del producto
+     * @param delta Cantidad a sumar (negativa para restar)
+     * @return 1 si se ha actualizado, 0 si el producto no existe o el stock quedaría negativo
+     */
+    public int adjustStock(Long id, int delta) {
+        int updated = nativeStockQuery("UPDATE products SET stock = stock + :delta, updated_at = :now"
+                + " WHERE id = :id AND stock + :delta >= 0")
+                .setParameter("delta", delta)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("id", id)
+                .executeUpdate();
+        if (updated > 0) {
+            evict(id);
+        }
+        return updated;
+    }
+
+    /**
+     * Lee el stock de un producto bloqueando su fila hasta el final de la transacción.
+     *
+     * @param id ID del producto
+     * @return El stock, o vacío si el producto no existe
+     */
+    public Optional<Integer> lockStock(Long id) {
+        List<?> rows = nativeStockQuery("SELECT stock FROM products WHERE id = :id FOR UPDATE")
+                .setParameter("id", id)
+                .getResultList();
+        return rows.isEmpty() ? Optional.empty() : Optional.of(((Number) rows.get(0)).intValue());
+    }
+
+    /**
+     * Fija el stock de un producto cuya fila se ha bloqueado con {@link #lockStock(Long)}.
+     *
+     * @param id ID del producto
+     * @param stock Nuevo stock
+     */
+    public void setStock(Long id, int stock) {
+        nativeStockQuery("UPDATE products SET stock = :stock, updated_at = :now WHERE id = :id")
+                .setParameter("stock", stock)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("id", id)
+                .executeUpdate();
+        evict(id);
+    }
+
+    private NativeQuery<?> nativeStockQuery(String sql) {
+        return getSession().createNativeQuery(sql).addSynchronizedQuerySpace(STOCK_QUERY_SPACE);
+    }
+
+    /**
+     * Desaloja el producto de la caché de segundo nivel ahora, para que esta transacción lo
+     * lea de la base de datos, y de nuevo al terminar, por si otra transacción lo ha vuelto a
+     * cargar con el valor anterior mientras tanto.
+     */
+    private void evict(Long id) {
+        Cache cache = getEntityManager().getEntityManagerFactory().getCache();
+        cache.evict(Product.class, id);
+        transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                cache.evict(Product.class, id);
+            }
+        });
+    }
+
+    /**
+     * Número aproximado de filas de la tabla de productos según las estadísticas de MySQL.
+     * <p>
+     * No recorre la tabla: InnoDB mantiene el valor a partir de un muestreo, así que puede
+     * desviarse del real y no distingue productos activos de inactivos.
+     *
+     * @return Filas estimadas
+     */
+    public long estimateRowCount() {
+        Object rows = getEntityManager().createNativeQuery("SELECT TABLE_ROWS FROM information_schema.TABLES "
+                        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'products'")
+                .getSingleResult();
+        return rows == null ? 0 : ((Number) rows).longValue();
+    }
+
+    /**
+     * Número aproximado de productos que cumplen el filtro según el plan de MySQL o MariaDB.
+     * <p>
+     * Se pide el {@code EXPLAIN} de la consulta, que no la ejecuta: el total es el número de
+     * filas que el optimizador prevé examinar por el porcentaje que estima que cumple el resto
+     * de la condición. Ambos salen de las estadísticas de índices y tablas, así que el valor
+     * puede desviarse bastante del real, sobre todo con filtros por nombre. Sin filtros se usa
+     * {@link #estimateRowCount()}.
+     * <p>
+     * Las columnas del plan se leen por nombre porque su posición cambia entre versiones: MySQL
+     * 5.5 y MariaDB no incluyen {@code partitions} ni {@code filtered} en el EXPLAIN básico, y
+     * sin {@code filtered} se toma el 100 %.
+     *
+     * @param filter Criterios de búsqueda
+     * @return Productos estimados, o vacío si el plan no se puede interpretar
+     */
+    public OptionalLong estimateByFilter(ProductFilter filter) {
+        Map<String, Object> parameters = new HashMap<>();
+        String where = where(filter, parameters);
+        if (parameters.isEmpty()) {
+            return OptionalLong.of(estimateRowCount());
+        }
+        // La condición usa los nombres de las columnas; solo la categoría cambia de tipo en SQL
+        parameters.computeIfPresent("category", (name, value) -> ((ProductCategory) value).name());
+        List<Tuple> plan;
+        try {
+            Query explain = getEntityManager()
+                    .createNativeQuery("EXPLAIN SELECT id FROM products WHERE " + where, Tuple.class);
+            parameters.forEach(explain::setParameter);
+            @SuppressWarnings("unchecked")
+            List<Tuple> result = explain.getResultList();
+            plan = result;
+        } catch (PersistenceException e) {
+            LOG.debugf(e, "No se ha podido obtener el plan para estimar el conteo de productos");
+            return OptionalLong.empty();
+        }
+        if (plan.isEmpty()) {
+            return OptionalLong.of(0);
+        }
+        Tuple row = plan.get(0);
+        Double rows = planNumber(row, "rows");
+        if (rows == null) {
+            return OptionalLong.empty();
+        }
+        Double filtered = planNumber(row, "filtered");
+        return OptionalLong.of(Math.round(rows * (filtered != null ? filtered : 100.0) / 100.0));
+    }
+
+    /**
+     * Valor numérico de una columna del plan, buscada por nombre sin distinguir mayúsculas.
+     *
+     * @return El valor, o null si la columna no existe o no es numérica
+     */
+    private static Double planNumber(Tuple row, String column) {
+        for (TupleElement<?> element : row.getElements()) {
+            if (column.equalsIgnoreCase(element.getAlias())) {
+                Object value = row.get(element);
+                if (value instanceof Number number) {
+                    return number.doubleValue();
+                }
+                if (value instanceof String text) {
+                    try {
+                        return Double.valueOf(text.trim());
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                }
+                return null;
+            }
+        }
+        return null;
     }
 
     public long countActive() {
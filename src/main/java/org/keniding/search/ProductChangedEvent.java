@@ -0,0 +1,11 @@
+package org.keniding.search;
+
+/**
+ * Evento CDI que {@code ProductService} dispara al crear, modificar o eliminar un producto.
+ *
+ * @param id ID del producto
+ * @param name Nombre actual, o null si el producto se ha eliminado físicamente
+ * @param active Si el producto sigue activo y debe aparecer en las búsquedas
+ */
+public record ProductChangedEvent(Long id, String name, boolean active) {
+}
@@ -0,0 +1,107 @@
+package org.keniding.search;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+import org.keniding.repository.ProductRepository;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Índice de búsqueda en memoria sobre los nombres de los productos activos.
+ * <p>
+ * Se construye al arrancar a partir de la base de datos y se mantiene al día con los
+ * {@link ProductChangedEvent} que dispara {@code ProductService}. Los eventos se observan en
+ * la fase {@link TransactionPhase#AFTER_SUCCESS}, de modo que un cambio solo llega al índice
+ * si su transacción se ha confirmado.
+ * <p>
+ * Las búsquedas toman el bloqueo de lectura y las actualizaciones el de escritura.
+ */
+@ApplicationScoped
+public class ProductSearchIndex {
+    private static final Logger LOG = Logger.getLogger(ProductSearchIndex.class);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TrigramIndex index = new TrigramIndex();
+
+    @Inject
+    ProductRepository productRepository;
+
+    /**
+     * Fracción mínima de los trigramas de la consulta que debe contener un nombre.
+     */
+    @ConfigProperty(name = "search.products.min-similarity", defaultValue = "0.7")
+    double minSimilarity;
+
+    /**
+     * Resultado de una búsqueda.
+     *
+     * @param total Número total de productos que coinciden
+     * @param productIds IDs de la página pedida, ordenados por relevancia
+     */
+    public record Result(long total, List<Long> productIds) {
+    }
+
+    @Transactional
+    void onStart(@Observes StartupEvent event) {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try (Stream<Object[]> names = productRepository.streamActiveNames()) {
+            names.forEach(row -> index.put((Long) row[0], (String) row[1]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOG.infof("Índice de búsqueda de productos construido con %d nombres en %d ms",
+                index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    void onProductChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.active() && event.name() != null) {
+                index.put(event.id(), event.name());
+            } else {
+                index.remove(event.id());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indica si el índice puede resolver la consulta. Las de menos de tres caracteres no
+     * generan trigramas propios y deben resolverse de otra forma.
+     *
+     * @param query Texto a buscar
+     * @return true si {@link #search(String, int, int)} puede encontrar resultados
+     */
+    public static boolean supports(String query) {
+        return TrigramIndex.searchable(query);
+    }
+
+    /**
+     * Busca productos activos por nombre, ordenados por relevancia.
+     *
+     * @param query Texto a buscar
+     * @param pageIndex Número de página (empieza en 0)
+     * @param pageSize Tamaño de la página
+     * @return El total de coincidencias y los IDs de la página
+     */
+    public Result search(String query, int pageIndex, int pageSize) {
+        lock.readLock().lock();
+        try {
+            TrigramIndex.Result result = index.search(query, minSimilarity, pageIndex * pageSize, pageSize);
+            return new Result(result.total(), result.productIds());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
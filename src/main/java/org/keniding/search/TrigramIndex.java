@@ -0,0 +1,216 @@
+package org.keniding.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de trigramas sobre nombres cortos. No es thread-safe.
+ * <p>
+ * Cada nombre se normaliza (minúsculas, espacios colapsados) y se rellena con dos espacios
+ * delante y uno detrás, de modo que el inicio y el final también generan trigramas. Las
+ * consultas no se rellenan, para que encuentren el texto en cualquier posición como un
+ * {@code LIKE '%x%'}; por eso necesitan al menos {@value #MIN_QUERY_LENGTH} caracteres
+ * (véase {@link #searchable(String)}) y las más cortas no encuentran nada.
+ * Los documentos se numeran de forma densa y cada trigrama apunta a un array de enteros con
+ * los documentos que lo contienen. Al modificar o eliminar un nombre, su documento se marca
+ * como borrado y, cuando los borrados superan la mitad, el índice se compacta.
+ */
+final class TrigramIndex {
+    static final int MIN_QUERY_LENGTH = 3;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> docByProduct = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+
+    private long[] productIds = new long[1024];
+    private short[] trigramCounts = new short[1024];
+    private int docCount;
+    private int deletedCount;
+
+    /**
+     * Resultado de una búsqueda: número total de coincidencias y los IDs de la página pedida.
+     */
+    record Result(int total, List<Long> productIds) {
+    }
+
+    void put(long productId, String name) {
+        remove(productId);
+        Set<Long> trigrams = trigrams(normalize(name), true);
+        if (trigrams.isEmpty()) {
+            return;
+        }
+        int doc = docCount++;
+        if (doc == productIds.length) {
+            productIds = Arrays.copyOf(productIds, doc * 2);
+            trigramCounts = Arrays.copyOf(trigramCounts, doc * 2);
+        }
+        productIds[doc] = productId;
+        trigramCounts[doc] = (short) Math.min(trigrams.size(), Short.MAX_VALUE);
+        docByProduct.put(productId, doc);
+        for (Long trigram : trigrams) {
+            postings.computeIfAbsent(trigram, key -> new Postings()).add(doc);
+        }
+    }
+
+    void remove(long productId) {
+        Integer doc = docByProduct.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        deleted.set(doc);
+        deletedCount++;
+        if (deletedCount > 1024 && deletedCount * 2 > docCount) {
+            compact();
+        }
+    }
+
+    int size() {
+        return docByProduct.size();
+    }
+
+    /**
+     * Indica si la consulta, una vez normalizada, es lo bastante larga para el índice.
+     */
+    static boolean searchable(String query) {
+        return normalize(query).length() >= MIN_QUERY_LENGTH;
+    }
+
+    /**
+     * Busca los nombres que contienen al menos la fracción {@code minSimilarity} de los
+     * trigramas de la consulta.
+     * <p>
+     * Los resultados se ordenan por esa fracción, después por número de trigramas del nombre
+     * (a igual coincidencia, el nombre más corto es más parecido a la consulta) y por último por ID.
+     */
+    Result search(String query, double minSimilarity, int offset, int limit) {
+        String normalized = normalize(query);
+        if (normalized.length() < MIN_QUERY_LENGTH) {
+            return new Result(0, List.of());
+        }
+        Set<Long> queryTrigrams = trigrams(normalized, false);
+        if (queryTrigrams.isEmpty()) {
+            return new Result(0, List.of());
+        }
+        int[] matches = new int[docCount];
+        int[] touched = new int[64];
+        int touchedCount = 0;
+        for (Long trigram : queryTrigrams) {
+            Postings list = postings.get(trigram);
+            if (list == null) {
+                continue;
+            }
+            for (int i = 0; i < list.size; i++) {
+                int doc = list.docs[i];
+                if (matches[doc]++ == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = doc;
+                }
+            }
+        }
+
+        int required = (int) Math.ceil(minSimilarity * queryTrigrams.size());
+        List<int[]> hits = new ArrayList<>();
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = touched[i];
+            if (matches[doc] >= Math.max(1, required) && !deleted.get(doc)) {
+                hits.add(new int[]{doc, matches[doc]});
+            }
+        }
+        hits.sort((a, b) -> {
+            int byMatches = Integer.compare(b[1], a[1]);
+            if (byMatches != 0) {
+                return byMatches;
+            }
+            int byLength = Integer.compare(trigramCounts[a[0]], trigramCounts[b[0]]);
+            return byLength != 0 ? byLength : Long.compare(productIds[a[0]], productIds[b[0]]);
+        });
+
+        List<Long> page = new ArrayList<>(Math.max(0, Math.min(limit, hits.size() - offset)));
+        for (int i = offset; i < hits.size() && page.size() < limit; i++) {
+            page.add(productIds[hits.get(i)[0]]);
+        }
+        return new Result(hits.size(), page);
+    }
+
+    private void compact() {
+        Map<Long, Postings> compacted = new HashMap<>();
+        int[] remap = new int[docCount];
+        int live = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (deleted.get(doc)) {
+                remap[doc] = -1;
+            } else {
+                remap[doc] = live;
+                productIds[live] = productIds[doc];
+                trigramCounts[live] = trigramCounts[doc];
+                docByProduct.put(productIds[live], live);
+                live++;
+            }
+        }
+        for (Map.Entry<Long, Postings> entry : postings.entrySet()) {
+            Postings source = entry.getValue();
+            Postings target = new Postings();
+            for (int i = 0; i < source.size; i++) {
+                int doc = remap[source.docs[i]];
+                if (doc >= 0) {
+                    target.add(doc);
+                }
+            }
+            if (target.size > 0) {
+                compacted.put(entry.getKey(), target);
+            }
+        }
+        postings.clear();
+        postings.putAll(compacted);
+        deleted.clear();
+        deletedCount = 0;
+        docCount = live;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : WHITESPACE.matcher(text.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    /**
+     * Trigramas distintos del texto ya normalizado, cada uno empaquetado en un long
+     * (16 bits por carácter).
+     */
+    private static Set<Long> trigrams(String normalized, boolean padded) {
+        Set<Long> result = new HashSet<>();
+        if (normalized.isEmpty()) {
+            return result;
+        }
+        String text = padded ? "  " + normalized + " " : normalized;
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            result.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return result;
+    }
+
+    /**
+     * Lista de documentos de un trigrama, en orden creciente de número de documento.
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+}
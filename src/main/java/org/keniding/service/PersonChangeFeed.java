@@ -0,0 +1,193 @@
+package org.keniding.service;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.subscription.BackPressureStrategy;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.keniding.dto.PersonChangeEvent;
+import org.keniding.dto.PersonChangeEvent.Type;
+import org.keniding.model.Person;
+import org.keniding.repository.PersonRepository;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Difunde las altas, modificaciones y bajas de personas a los suscriptores del feed de cambios.
+ * <p>
+ * Cada evento recibe un número de secuencia creciente dentro del {@code compute} que aplica
+ * el cambio, pero no se difunde hasta que el repositorio confirma que es durable: queda en
+ * una cola ordenada por secuencia y se entrega, en orden y sin huecos, cuando él y todos los
+ * anteriores lo son. La entrega la hace el hilo que confirma, fuera del bloqueo del mapa de
+ * personas; si otro hilo ya está entregando, este se encarga también de lo que quede listo,
+ * así que las escrituras no esperan unas a otras. Los últimos
+ * {@code persons.changes.history-size} eventos se conservan para que un cliente que se
+ * reconecta indicando el último número recibido continúe donde lo dejó.
+ * <p>
+ * Cada suscriptor tiene su propio buffer de {@code persons.changes.buffer-size} eventos.
+ * Si un consumidor lento lo llena, su flujo termina con error en lugar de acumular memoria;
+ * al reconectarse recupera lo que le falte del historial o recibe un evento {@code RESET}.
+ */
+@ApplicationScoped
+public class PersonChangeFeed implements PersonRepository.ChangeListener {
+    @ConfigProperty(name = "persons.changes.history-size", defaultValue = "10000")
+    int historySize;
+
+    @ConfigProperty(name = "persons.changes.buffer-size", defaultValue = "1024")
+    int bufferSize;
+
+    private final List<MultiEmitter<? super PersonChangeEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Eventos numerados pendientes de entregar, por secuencia.
+     */
+    private final ConcurrentNavigableMap<Long, Staged> staged = new ConcurrentSkipListMap<>();
+
+    /**
+     * Protege la entrega, el historial y el alta de suscriptores.
+     */
+    private final ReentrantLock dispatchLock = new ReentrantLock();
+
+    /**
+     * Eventos entregados recientes, del más antiguo al más reciente. Se accede con {@link #dispatchLock}.
+     */
+    private final Deque<PersonChangeEvent> history = new ArrayDeque<>();
+
+    /**
+     * Secuencia del último evento entregado.
+     */
+    private volatile long delivered;
+
+    /**
+     * Numera un cambio y lo deja pendiente de entrega.
+     * <p>
+     * {@link PersonRepository} lo invoca dentro del {@code compute} que aplica el cambio, así
+     * que dos cambios sobre la misma persona reciben secuencias en el orden en que se aplicaron.
+     * Solo incrementa un contador y añade el evento a la cola: no bloquea ni llama a los
+     * suscriptores.
+     *
+     * @param type Tipo de cambio
+     * @param id ID de la persona afectada
+     * @param person Estado de la persona tras el cambio, o null si se ha eliminado
+     * @return Secuencia asignada, para {@link #durable(long)}
+     */
+    @Override
+    public long changed(Type type, Long id, Person person) {
+        long number = sequence.incrementAndGet();
+        staged.put(number, new Staged(new PersonChangeEvent(number, type, id, person, System.currentTimeMillis())));
+        return number;
+    }
+
+    /**
+     * Marca un cambio como durable y entrega los eventos que ya se pueden entregar en orden.
+     * <p>
+     * Emitir no bloquea: el evento queda en el buffer de cada suscriptor, aunque un suscriptor
+     * con demanda puede procesarlo en este mismo hilo.
+     *
+     * @param number Secuencia devuelta por {@link #changed(Type, Long, Person)}
+     */
+    @Override
+    public void durable(long number) {
+        Staged event = staged.get(number);
+        if (event != null) {
+            event.ready = true;
+        }
+        drain();
+    }
+
+    /**
+     * Abre un flujo de cambios.
+     *
+     * @param lastSequence Secuencia del último evento recibido, o null para recibir solo cambios nuevos
+     * @return Flujo con los eventos pendientes del historial seguidos de los nuevos cambios
+     */
+    public Multi<PersonChangeEvent> subscribe(Long lastSequence) {
+        // Al reanudar, el buffer admite además el historial completo que se reenvía de golpe;
+        // solo guarda referencias a eventos que el historial ya retiene.
+        int capacity = lastSequence != null ? bufferSize + historySize : bufferSize;
+        return Multi.createFrom().<PersonChangeEvent>emitter(emitter -> register(emitter, lastSequence),
+                        BackPressureStrategy.ERROR)
+                .onOverflow().buffer(capacity);
+    }
+
+    /**
+     * Entrega los eventos listos consecutivos al último entregado. Si otro hilo tiene el
+     * bloqueo no espera: al soltarlo, ese hilo vuelve a comprobar si hay eventos listos.
+     */
+    private void drain() {
+        while (readyToDeliver()) {
+            if (!dispatchLock.tryLock()) {
+                return;
+            }
+            try {
+                Map.Entry<Long, Staged> next;
+                while ((next = staged.firstEntry()) != null && next.getKey() == delivered + 1 && next.getValue().ready) {
+                    staged.remove(next.getKey());
+                    deliver(next.getValue().event);
+                }
+            } finally {
+                dispatchLock.unlock();
+            }
+        }
+    }
+
+    private boolean readyToDeliver() {
+        Staged next = staged.get(delivered + 1);
+        return next != null && next.ready;
+    }
+
+    private void deliver(PersonChangeEvent event) {
+        history.addLast(event);
+        if (history.size() > historySize) {
+            history.removeFirst();
+        }
+        delivered = event.getSequence();
+        for (MultiEmitter<? super PersonChangeEvent> subscriber : subscribers) {
+            subscriber.emit(event);
+        }
+    }
+
+    private void register(MultiEmitter<? super PersonChangeEvent> emitter, Long lastSequence) {
+        dispatchLock.lock();
+        try {
+            if (lastSequence != null) {
+                PersonChangeEvent oldest = history.peekFirst();
+                long firstAvailable = oldest != null ? oldest.getSequence() : delivered + 1;
+                if (lastSequence + 1 < firstAvailable || lastSequence > delivered) {
+                    emitter.emit(new PersonChangeEvent(delivered, Type.RESET, null, null, System.currentTimeMillis()));
+                } else {
+                    for (PersonChangeEvent event : history) {
+                        if (event.getSequence() > lastSequence) {
+                            emitter.emit(event);
+                        }
+                    }
+                }
+            }
+            subscribers.add(emitter);
+            emitter.onTermination(() -> subscribers.remove(emitter));
+        } finally {
+            dispatchLock.unlock();
+        }
+        // Un cambio confirmado mientras se registraba no pudo entregarse
+        drain();
+    }
+
+    private static final class Staged {
+        private final PersonChangeEvent event;
+        private volatile boolean ready;
+
+        Staged(PersonChangeEvent event) {
+            this.event = event;
+        }
+    }
+}
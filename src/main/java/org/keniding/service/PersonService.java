@@ -2,11 +2,28 @@ package org.keniding.service;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.keniding.dto.BatchResponse;
+import org.keniding.dto.BatchResponse.ItemResult;
+import org.keniding.dto.CursorPage;
+import org.keniding.dto.PersonStats;
 import org.keniding.model.Person;
 import org.keniding.repository.PersonRepository;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * Servicio para la gestión de entidades Person.
@@ -20,24 +37,56 @@ import java.util.NoSuchElementException;
  */
 @ApplicationScoped
 public class PersonService {
+    /**
+     * Tamaño de página máximo para la paginación por cursor.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String CURSOR_PREFIX = "id:";
+
+    /**
+     * Número de elementos que se validan y aplican juntos en las operaciones por lotes.
+     */
+    private static final int BATCH_CHUNK_SIZE = 8192;
+
+    /**
+     * Número máximo de resultados por elemento que se detallan en la respuesta de un lote;
+     * los demás solo se cuentan, para que la memoria no crezca con el tamaño del lote.
+     */
+    @ConfigProperty(name = "persons.batch.max-reported-items", defaultValue = "1000")
+    int maxReportedItems;
+
     /**
      * Repositorio para el acceso a datos de entidades Person.
      */
     private final PersonRepository personRepository;
 
+    /**
+     * Validador de Bean Validation para los elementos de las operaciones por lotes.
+     */
+    private final Validator validator;
+
     /**
      * Constructor que inicializa el servicio con su repositorio.
      * <p>
      * La anotación @Inject permite que CDI inyecte automáticamente
      * una instancia del PersonRepository.
      * <p>
-     * Al inicializarse, carga datos de ejemplo si el repositorio está vacío.
+     * Al inicializarse, registra el feed de cambios como receptor del repositorio y carga
+     * datos de ejemplo si el repositorio está vacío. El repositorio numera cada cambio
+     * dentro del mismo {@code compute} que lo aplica, de modo que la secuencia del feed
+     * sigue el orden real de los cambios sobre cada persona, y el feed lo difunde cuando
+     * ya es durable.
      *
      * @param personRepository El repositorio de personas a utilizar
+     * @param validator El validador para las operaciones por lotes
+     * @param changeFeed El feed de cambios al que se publican las modificaciones
      */
     @Inject
-    public PersonService(PersonRepository personRepository) {
+    public PersonService(PersonRepository personRepository, Validator validator, PersonChangeFeed changeFeed) {
         this.personRepository = personRepository;
+        this.validator = validator;
+        personRepository.setChangeListener(changeFeed);
 
         initSampleData();
     }
@@ -49,7 +98,7 @@ public class PersonService {
      * evitando duplicar información en inicializaciones posteriores.
      */
     private void initSampleData() {
-        if (personRepository.findAll().isEmpty()) {
+        if (personRepository.count() == 0) {
             Person person1 = new Person();
             person1.setName("Ken");
             person1.setLastName("Iding");
@@ -79,6 +128,108 @@ public class PersonService {
         return personRepository.findAll();
     }
 
+    /**
+     * Recupera una página de personas ordenadas por ID a partir de un cursor.
+     * <p>
+     * El cursor es opaco para el cliente: codifica el último ID devuelto, de modo que las
+     * altas y bajas concurrentes no desplazan las páginas siguientes como lo haría un offset.
+     *
+     * @param cursor Cursor {@code next} de la página anterior, o null para la primera página
+     * @param limit Número máximo de personas por página (1 a {@value #MAX_PAGE_SIZE})
+     * @return La página con su cursor siguiente, que es null si no hay más personas
+     * @throws IllegalArgumentException si el cursor no es válido o el límite está fuera de rango
+     */
+    public CursorPage<Person> page(String cursor, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        List<Person> persons = personRepository.findPage(decodeCursor(cursor), limit + 1);
+        String next = null;
+        if (persons.size() > limit) {
+            persons = persons.subList(0, limit);
+            next = encodeCursor(persons.get(limit - 1).getId());
+        }
+        return CursorPage.of(persons, limit, next);
+    }
+
+    private static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (decoded.startsWith(CURSOR_PREFIX)) {
+                return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // Base64 o número mal formado: se trata igual que un prefijo desconocido
+        }
+        throw new IllegalArgumentException("Cursor no válido: " + cursor);
+    }
+
+    /**
+     * Busca personas combinando los filtros indicados.
+     * <p>
+     * Los candidatos se obtienen del índice más selectivo disponible (apellido, después
+     * edad y por último fecha de nacimiento) y sobre ellos se aplican el resto de filtros,
+     * de modo que nunca se recorre el repositorio completo.
+     * Las fechas se interpretan en UTC e incluyen el día completo.
+     *
+     * @param lastName Apellido exacto (opcional)
+     * @param minAge Edad mínima inclusive (opcional)
+     * @param maxAge Edad máxima inclusive (opcional)
+     * @param bornFrom Fecha de nacimiento mínima inclusive (opcional)
+     * @param bornTo Fecha de nacimiento máxima inclusive (opcional)
+     * @return Lista de personas que cumplen todos los filtros, ordenada por ID
+     */
+    public List<Person> search(String lastName, Integer minAge, Integer maxAge, LocalDate bornFrom, LocalDate bornTo) {
+        int min = minAge != null ? minAge : 0;
+        int max = maxAge != null ? maxAge : Integer.MAX_VALUE;
+        Date from = bornFrom != null
+                ? Date.from(bornFrom.atStartOfDay(ZoneOffset.UTC).toInstant()) : new Date(Long.MIN_VALUE);
+        Date to = bornTo != null
+                ? new Date(Date.from(bornTo.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant()).getTime() - 1)
+                : new Date(Long.MAX_VALUE);
+
+        List<Person> candidates;
+        if (lastName != null) {
+            candidates = personRepository.findByLastName(lastName);
+        } else if (minAge != null || maxAge != null) {
+            candidates = personRepository.findByAgeBetween(min, max);
+        } else {
+            candidates = personRepository.findByBirthDateBetween(from, to);
+        }
+
+        return candidates.stream()
+                .filter(person -> person.getAge() >= min && person.getAge() <= max)
+                .filter(person -> person.getBirthDate() != null
+                        && !person.getBirthDate().before(from) && !person.getBirthDate().after(to))
+                .toList();
+    }
+
+    /**
+     * Calcula agregados por franja de edad y la distribución de IMC de las personas
+     * nacidas en el intervalo indicado.
+     *
+     * @param bandWidth Anchura en años de cada franja de edad
+     * @param bornFrom Fecha de nacimiento mínima inclusive (opcional)
+     * @param bornTo Fecha de nacimiento máxima inclusive (opcional)
+     * @return Los agregados calculados
+     */
+    public PersonStats stats(int bandWidth, LocalDate bornFrom, LocalDate bornTo) {
+        if (bandWidth <= 0) {
+            throw new IllegalArgumentException("La anchura de la franja de edad debe ser positiva");
+        }
+        return personRepository.aggregate(bandWidth,
+                bornFrom != null ? Date.from(bornFrom.atStartOfDay(ZoneOffset.UTC).toInstant()) : null,
+                bornTo != null ? Date.from(bornTo.atStartOfDay(ZoneOffset.UTC).toInstant()) : null);
+    }
+
     /**
      * Busca una persona por su ID.
      * <p>
@@ -127,6 +278,172 @@ public class PersonService {
         return personRepository.save(person);
     }
 
+    /**
+     * Elemento de un lote que no se puede leer, por ejemplo una línea NDJSON mal formada.
+     * El iterador del lote la lanza desde {@code hasNext()} o {@code next()}; como la lectura
+     * no puede continuar tras ella, el lote se detiene en ese elemento.
+     */
+    public static class MalformedItemException extends IllegalArgumentException {
+        public MalformedItemException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Crea un lote de personas.
+     * <p>
+     * Cada elemento se valida por separado; los válidos se guardan por bloques de
+     * {@value #BATCH_CHUNK_SIZE} con {@link PersonRepository#saveAll(List)}. Al recibir un
+     * iterador, el lote puede leerse de la petición a medida que se procesa. Si el iterador
+     * lanza {@link MalformedItemException}, se guardan los elementos válidos anteriores y la
+     * respuesta termina con un 400 para ese elemento.
+     *
+     * @param persons Las personas a crear
+     * @return El resultado de cada elemento: 201 con su ID o 400 con los errores de validación
+     */
+    public BatchResponse createAll(Iterator<Person> persons) {
+        BatchResponse response = new BatchResponse(maxReportedItems);
+        List<Person> valid = new ArrayList<>(BATCH_CHUNK_SIZE);
+        List<Integer> positions = new ArrayList<>(BATCH_CHUNK_SIZE);
+        int index = 0;
+        MalformedItemException malformed = null;
+        try {
+            while (persons.hasNext()) {
+                Person person = persons.next();
+                if (isValid(index, person, response)) {
+                    person.setId(null);
+                    valid.add(person);
+                    positions.add(index);
+                }
+                index++;
+                if (valid.size() == BATCH_CHUNK_SIZE) {
+                    saveChunk(valid, positions, response);
+                }
+            }
+        } catch (MalformedItemException e) {
+            malformed = e;
+        }
+        saveChunk(valid, positions, response);
+        if (malformed != null) {
+            response.add(new ItemResult(index, 400, null, malformed.getMessage(), null));
+        }
+        return response;
+    }
+
+    private void saveChunk(List<Person> valid, List<Integer> positions, BatchResponse response) {
+        List<Person> saved = personRepository.saveAll(valid);
+        for (int i = 0; i < saved.size(); i++) {
+            response.add(new ItemResult(positions.get(i), 201, saved.get(i).getId(), null, null));
+        }
+        valid.clear();
+        positions.clear();
+    }
+
+    /**
+     * Actualiza un lote de personas identificadas por su ID.
+     * <p>
+     * Como en {@link #createAll(Iterator)}, un elemento mal formado detiene el lote después de
+     * aplicar los elementos válidos anteriores.
+     *
+     * @param persons Las personas a actualizar
+     * @return El resultado de cada elemento: 200, 400 si no es válido o no tiene ID, o 404 si no existe
+     */
+    public BatchResponse updateAll(Iterator<Person> persons) {
+        BatchResponse response = new BatchResponse(maxReportedItems);
+        List<Person> valid = new ArrayList<>(BATCH_CHUNK_SIZE);
+        List<Integer> positions = new ArrayList<>(BATCH_CHUNK_SIZE);
+        int index = 0;
+        MalformedItemException malformed = null;
+        try {
+            while (persons.hasNext()) {
+                Person person = persons.next();
+                if (person != null && person.getId() == null) {
+                    response.add(new ItemResult(index, 400, null, "El ID es obligatorio para actualizar", null));
+                } else if (isValid(index, person, response)) {
+                    valid.add(person);
+                    positions.add(index);
+                }
+                index++;
+                if (valid.size() == BATCH_CHUNK_SIZE) {
+                    updateChunk(valid, positions, response);
+                }
+            }
+        } catch (MalformedItemException e) {
+            malformed = e;
+        }
+        updateChunk(valid, positions, response);
+        if (malformed != null) {
+            response.add(new ItemResult(index, 400, null, malformed.getMessage(), null));
+        }
+        return response;
+    }
+
+    private void updateChunk(List<Person> valid, List<Integer> positions, BatchResponse response) {
+        boolean[] updated = personRepository.updateAll(valid);
+        for (int i = 0; i < valid.size(); i++) {
+            Long id = valid.get(i).getId();
+            if (updated[i]) {
+                response.add(new ItemResult(positions.get(i), 200, id, null, null));
+            } else {
+                response.add(new ItemResult(positions.get(i), 404, id, "Person not found with id " + id, null));
+            }
+        }
+        valid.clear();
+        positions.clear();
+    }
+
+    /**
+     * Elimina un lote de personas por su ID.
+     *
+     * @param ids Los IDs de las personas a eliminar
+     * @return El resultado de cada elemento: 204 si se ha eliminado o 404 si no existía
+     */
+    public BatchResponse deleteAll(List<Long> ids) {
+        BatchResponse response = new BatchResponse(maxReportedItems);
+        List<Long> present = new ArrayList<>(ids.size());
+        List<Integer> positions = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) == null) {
+                response.add(new ItemResult(i, 400, null, "El ID no puede ser nulo", null));
+            } else {
+                present.add(ids.get(i));
+                positions.add(i);
+            }
+        }
+        boolean[] removed = personRepository.deleteAllById(present);
+        for (int i = 0; i < present.size(); i++) {
+            Long id = present.get(i);
+            if (removed[i]) {
+                response.add(new ItemResult(positions.get(i), 204, id, null, null));
+            } else {
+                response.add(new ItemResult(positions.get(i), 404, id, "Person not found with id " + id, null));
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Valida un elemento de un lote y, si no es válido, registra su resultado con los errores
+     * por campo en el mismo formato que {@code ValidationExceptionMapper}.
+     */
+    private boolean isValid(int index, Person person, BatchResponse response) {
+        if (person == null) {
+            response.add(new ItemResult(index, 400, null, "El elemento no puede ser nulo", null));
+            return false;
+        }
+        Set<ConstraintViolation<Person>> violations = validator.validate(person);
+        if (violations.isEmpty()) {
+            return true;
+        }
+        Map<String, String> errors = new HashMap<>();
+        for (ConstraintViolation<Person> violation : violations) {
+            errors.merge(violation.getPropertyPath().toString(), violation.getMessage(),
+                    (error1, error2) -> error1 + "; " + error2);
+        }
+        response.add(new ItemResult(index, 400, person.getId(), "Los datos proporcionados no son válidos", errors));
+        return false;
+    }
+
     /**
      * Elimina una persona por su ID.
      * <p>
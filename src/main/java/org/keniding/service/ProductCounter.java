@@ -0,0 +1,143 @@
+package org.keniding.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.keniding.dto.ProductFilter;
+import org.keniding.enums.CountStrategy;
+import org.keniding.repository.ProductRepository;
+import org.keniding.search.ProductChangedEvent;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calcula el total de productos que cumplen un filtro según una {@link CountStrategy}.
+ * <p>
+ * Con {@link CountStrategy#CACHED} se guarda el último conteo exacto de cada filtro durante
+ * {@code products.count.cache-ttl}. Cualquier alta, baja o modificación confirmada descarta
+ * todos los conteos; uno que se estuviera calculando mientras tanto no se guarda.
+ * <p>
+ * Con {@link CountStrategy#ESTIMATED} el total sale solo de las estadísticas de MySQL: las
+ * filas de la tabla si no hay filtros, o la estimación del plan de la consulta filtrada. No se
+ * cuenta nada, así que el coste no depende del tamaño de la tabla, pero el resultado puede
+ * desviarse del real. Con otra base de datos, o si el plan no se puede leer, se usa CACHED.
+ */
+@ApplicationScoped
+public class ProductCounter {
+    private static final int MAX_CACHED_FILTERS = 1000;
+
+    @ConfigProperty(name = "products.count.strategy", defaultValue = "exact")
+    CountStrategy defaultStrategy;
+
+    @ConfigProperty(name = "products.count.cache-ttl", defaultValue = "30S")
+    Duration cacheTtl;
+
+    @ConfigProperty(name = "quarkus.datasource.db-kind")
+    String dbKind;
+
+    @Inject
+    ProductRepository productRepository;
+
+    private final Map<ProductFilter, CachedCount> counts = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Resuelve la estrategia de una petición.
+     *
+     * @param requested Estrategia pedida (exact, cached, estimated o none), o null para usar la configurada
+     * @return La estrategia a aplicar
+     * @throws IllegalArgumentException si la estrategia no existe
+     */
+    public CountStrategy resolve(String requested) {
+        if (requested == null || requested.trim().isEmpty()) {
+            return defaultStrategy;
+        }
+        try {
+            return CountStrategy.valueOf(requested.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Estrategia de conteo no válida: " + requested);
+        }
+    }
+
+    /**
+     * Cuenta los productos que cumplen el filtro.
+     * <p>
+     * Con ESTIMATED sobre una base de datos distinta de MySQL o MariaDB, o si no se puede
+     * interpretar el plan de la consulta, el total se calcula como CACHED, y así lo indica el
+     * resultado.
+     *
+     * @param filter Criterios de búsqueda
+     * @param strategy Estrategia; no admite {@link CountStrategy#NONE}
+     * @return El total y la estrategia con la que se obtuvo
+     */
+    public Count count(ProductFilter filter, CountStrategy strategy) {
+        switch (strategy) {
+            case EXACT:
+                return new Count(productRepository.countByFilter(filter), CountStrategy.EXACT);
+            case CACHED:
+                return new Count(cachedCount(filter).matching(), CountStrategy.CACHED);
+            case ESTIMATED:
+                OptionalLong estimate = supportsEstimates()
+                        ? productRepository.estimateByFilter(filter) : OptionalLong.empty();
+                if (estimate.isEmpty()) {
+                    return new Count(cachedCount(filter).matching(), CountStrategy.CACHED);
+                }
+                return new Count(estimate.getAsLong(), CountStrategy.ESTIMATED);
+            default:
+                throw new IllegalArgumentException("La estrategia " + strategy + " no calcula un total");
+        }
+    }
+
+    void onProductChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProductChangedEvent event) {
+        generation.incrementAndGet();
+        counts.clear();
+    }
+
+    private CachedCount cachedCount(ProductFilter filter) {
+        long now = System.nanoTime();
+        CachedCount cached = counts.get(filter);
+        if (cached != null && now < cached.expiresAt()) {
+            return cached;
+        }
+        long observedGeneration = generation.get();
+        long matching = productRepository.countByFilter(filter);
+        CachedCount fresh = new CachedCount(matching, now + cacheTtl.toNanos());
+        if (generation.get() == observedGeneration) {
+            if (counts.size() >= MAX_CACHED_FILTERS) {
+                // Los filtros por nombre admiten texto libre: se acota el número de entradas
+                counts.clear();
+            }
+            ProductFilter key = copyOf(filter);
+            counts.put(key, fresh);
+            if (generation.get() != observedGeneration) {
+                // Un cambio confirmado entre la comprobación y el put: el conteo ya no es fiable
+                counts.remove(key, fresh);
+            }
+        }
+        return fresh;
+    }
+
+    private boolean supportsEstimates() {
+        return "mysql".equalsIgnoreCase(dbKind) || "mariadb".equalsIgnoreCase(dbKind);
+    }
+
+    private static ProductFilter copyOf(ProductFilter filter) {
+        return new ProductFilter(filter.getName(), filter.getCategory(), filter.getMinPrice(),
+                filter.getMaxPrice(), filter.getActive());
+    }
+
+    /**
+     * Total de productos y estrategia con la que se obtuvo.
+     */
+    public record Count(long total, CountStrategy strategy) {
+    }
+
+    private record CachedCount(long matching, long expiresAt) {
+    }
+}
@@ -0,0 +1,157 @@
+package org.keniding.service;
+
+import org.keniding.enums.ProductCategory;
+import org.keniding.model.Product;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Lee productos de un CSV fila a fila, sin cargar el fichero en memoria.
+ * <p>
+ * La primera fila es la cabecera con los nombres de las columnas, en cualquier orden:
+ * name, description, price, stock, sku, category, imageUrl y active. Los campos pueden ir
+ * entre comillas dobles (con {@code ""} para una comilla) y contener comas o saltos de línea.
+ * Una fila que no se puede convertir lanza {@link ProductImportService.RowRejectedException}
+ * con su número; el lector ya ha avanzado, así que se puede seguir con la siguiente.
+ */
+public final class ProductCsvReader implements Iterator<Product>, Closeable {
+    private final BufferedReader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private List<String> nextRecord;
+    /**
+     * Número de la última fila leída, contando la cabecera como fila 1.
+     */
+    private long row;
+
+    public ProductCsvReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        List<String> header = readRecord();
+        if (header == null) {
+            return;
+        }
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("price")) {
+            throw new IllegalArgumentException("La cabecera CSV debe incluir al menos las columnas name y price");
+        }
+        nextRecord = readRecord();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return nextRecord != null;
+    }
+
+    @Override
+    public Product next() {
+        if (nextRecord == null) {
+            throw new NoSuchElementException();
+        }
+        List<String> record = nextRecord;
+        long recordRow = row;
+        nextRecord = readRecord();
+        try {
+            return toProduct(record);
+        } catch (IllegalArgumentException e) {
+            throw new ProductImportService.RowRejectedException("Fila CSV " + recordRow + " no válida: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Product toProduct(List<String> record) {
+        Product product = new Product();
+        product.setName(field(record, "name"));
+        product.setDescription(field(record, "description"));
+        String price = field(record, "price");
+        product.setPrice(price != null ? new BigDecimal(price) : null);
+        String stock = field(record, "stock");
+        product.setStock(stock != null ? Integer.valueOf(stock) : 0);
+        product.setSku(field(record, "sku"));
+        String category = field(record, "category");
+        product.setCategory(category != null ? ProductCategory.valueOf(category.toUpperCase(Locale.ROOT)) : null);
+        product.setImageUrl(field(record, "imageurl"));
+        String active = field(record, "active");
+        product.setActive(active == null || Boolean.parseBoolean(active));
+        return product;
+    }
+
+    private String field(List<String> record, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Lee el siguiente registro, que puede ocupar varias líneas si tiene campos entre comillas.
+     *
+     * @return Los campos del registro, o null al final del fichero
+     */
+    private List<String> readRecord() {
+        try {
+            int c = reader.read();
+            while (c == '\r' || c == '\n') {
+                c = reader.read();
+            }
+            if (c == -1) {
+                return null;
+            }
+            row++;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (c != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int following = reader.read();
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == '\r') {
+                    break;
+                } else {
+                    field.append((char) c);
+                }
+                c = reader.read();
+            }
+            fields.add(field.toString());
+            return fields;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
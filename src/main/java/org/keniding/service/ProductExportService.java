@@ -0,0 +1,133 @@
+package org.keniding.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.keniding.model.Product;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Exporta los productos activos leyendo la tabla con un cursor de solo avance.
+ * <p>
+ * La consulta se ejecuta en una {@link StatelessSession}, que no tiene contexto de
+ * persistencia: cada producto se escribe en la salida y queda libre antes de leer el
+ * siguiente. Con {@code useCursorFetch=true} en la URL de MySQL, el driver trae las filas en
+ * bloques de {@code products.export.fetch-size} en lugar de cargar el resultado completo, así
+ * que la memoria usada no depende del tamaño del catálogo.
+ */
+@ApplicationScoped
+public class ProductExportService {
+    /**
+     * Columnas del CSV, en el mismo formato que acepta {@link ProductCsvReader}.
+     */
+    private static final String CSV_HEADER = "id,name,description,price,stock,sku,category,imageUrl,active";
+    private static final int FLUSH_INTERVAL = 1000;
+
+    @ConfigProperty(name = "products.export.fetch-size", defaultValue = "1000")
+    int fetchSize;
+
+    private final SessionFactory sessionFactory;
+    private final ObjectMapper objectMapper;
+
+    @Inject
+    public ProductExportService(SessionFactory sessionFactory, ObjectMapper objectMapper) {
+        this.sessionFactory = sessionFactory;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escribe los productos activos como NDJSON, uno por línea, en orden de ID.
+     *
+     * @param output Destino de la exportación
+     */
+    public void exportNdjson(OutputStream output) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(Product.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        try (StatelessSession session = sessionFactory.openStatelessSession();
+             ScrollableResults<Product> products = scrollActive(session);
+             JsonGenerator json = objectMapper.getFactory().createGenerator(output)) {
+            for (int i = 0; products.next(); i++) {
+                writer.writeValue(json, products.get());
+                if (i == 0 || (i + 1) % FLUSH_INTERVAL == 0) {
+                    json.flush();
+                }
+            }
+            json.writeRaw('\n');
+        }
+    }
+
+    /**
+     * Escribe los productos activos como CSV con cabecera, en orden de ID.
+     *
+     * @param output Destino de la exportación
+     */
+    public void exportCsv(OutputStream output) throws IOException {
+        try (StatelessSession session = sessionFactory.openStatelessSession();
+             ScrollableResults<Product> products = scrollActive(session);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024)) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            for (int i = 0; products.next(); i++) {
+                Product product = products.get();
+                writer.write(String.valueOf(product.id));
+                writer.write(',');
+                writeCsvField(writer, product.getName());
+                writer.write(',');
+                writeCsvField(writer, product.getDescription());
+                writer.write(',');
+                writer.write(product.getPrice() != null ? product.getPrice().toPlainString() : "");
+                writer.write(',');
+                writer.write(product.getStock() != null ? product.getStock().toString() : "");
+                writer.write(',');
+                writeCsvField(writer, product.getSku());
+                writer.write(',');
+                writer.write(product.getCategory() != null ? product.getCategory().name() : "");
+                writer.write(',');
+                writeCsvField(writer, product.getImageUrl());
+                writer.write(',');
+                writer.write(String.valueOf(product.isActive()));
+                writer.write('\n');
+                if (i == 0 || (i + 1) % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                }
+            }
+        }
+    }
+
+    private ScrollableResults<Product> scrollActive(StatelessSession session) {
+        return session.createQuery("FROM Product p WHERE p.active = true ORDER BY p.id", Product.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,186 @@
+package org.keniding.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.CacheMode;
+import org.jboss.logging.Logger;
+import org.keniding.dto.BatchResponse.ItemResult;
+import org.keniding.dto.ImportReport;
+import org.keniding.model.Product;
+import org.keniding.repository.ProductRepository;
+import org.keniding.search.ProductChangedEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importación masiva de productos en bloques de tamaño fijo.
+ * <p>
+ * Las filas se leen a medida que llegan y se agrupan en bloques de
+ * {@code products.import.chunk-size}. En cada bloque se valida cada fila, se comprueba la
+ * unicidad de los SKU con una sola consulta y las filas válidas se insertan en una transacción
+ * propia; con {@code quarkus.hibernate-orm.jdbc.statement-batch-size} los INSERT viajan en
+ * lotes JDBC. La memoria usada depende del tamaño del bloque, no del de la importación.
+ * <p>
+ * Las filas que no se pueden convertir, no son válidas o repiten un SKU se rechazan una a una
+ * sin detener la importación. Si un bloque falla al guardarse, la importación se detiene y el
+ * informe refleja lo confirmado hasta entonces.
+ */
+@ApplicationScoped
+public class ProductImportService {
+    private static final Logger LOG = Logger.getLogger(ProductImportService.class);
+
+    @ConfigProperty(name = "products.import.chunk-size", defaultValue = "1000")
+    int chunkSize;
+
+    @ConfigProperty(name = "products.import.max-reported-errors", defaultValue = "1000")
+    int maxReportedErrors;
+
+    private final ProductRepository productRepository;
+    private final Validator validator;
+    private final Event<ProductChangedEvent> productChanged;
+
+    @Inject
+    public ProductImportService(ProductRepository productRepository, Validator validator,
+                                Event<ProductChangedEvent> productChanged) {
+        this.productRepository = productRepository;
+        this.validator = validator;
+        this.productChanged = productChanged;
+    }
+
+    /**
+     * Fila que no se puede convertir en producto. El iterador de la importación la lanza desde
+     * {@code next()} después de avanzar, de modo que la fila se rechaza y la importación sigue.
+     */
+    public static class RowRejectedException extends IllegalArgumentException {
+        public RowRejectedException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Importa los productos que va devolviendo el iterador.
+     * <p>
+     * Si el iterador falla a mitad con otro error (por ejemplo, una línea mal formada), los
+     * bloques anteriores ya están confirmados.
+     *
+     * @param rows Productos a importar; el ID se ignora
+     * @return Número de filas importadas y rechazadas, con el detalle de los primeros errores
+     */
+    public ImportReport importProducts(Iterator<Product> rows) {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        List<Product> chunk = new ArrayList<>(chunkSize);
+        List<Long> positions = new ArrayList<>(chunkSize);
+        long index = 0;
+        while (rows.hasNext()) {
+            long position = index++;
+            try {
+                chunk.add(rows.next());
+                positions.add(position);
+            } catch (RowRejectedException e) {
+                reject(report, position, 400, e.getMessage(), null);
+            }
+            if (chunk.size() == chunkSize || !rows.hasNext()) {
+                if (!importChunk(chunk, positions, report)) {
+                    break;
+                }
+                chunk.clear();
+                positions.clear();
+            }
+        }
+        report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    /**
+     * Valida e inserta un bloque.
+     *
+     * @return false si el bloque no se pudo guardar y la importación debe detenerse
+     */
+    private boolean importChunk(List<Product> chunk, List<Long> positions, ImportReport report) {
+        List<Product> valid = new ArrayList<>(chunk.size());
+        List<Long> validPositions = new ArrayList<>(chunk.size());
+        Set<String> chunkSkus = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Product product = chunk.get(i);
+            product.id = null;
+            Set<ConstraintViolation<Product>> violations = validator.validate(product);
+            if (!violations.isEmpty()) {
+                reject(report, positions.get(i), 400, "Los datos proporcionados no son válidos", toMap(violations));
+            } else if (product.getCategory() == null) {
+                reject(report, positions.get(i), 400, "La categoría es obligatoria", null);
+            } else if (product.getStock() == null) {
+                reject(report, positions.get(i), 400, "El stock es obligatorio", null);
+            } else if (product.getSku() != null && !chunkSkus.add(product.getSku())) {
+                reject(report, positions.get(i), 409, "SKU " + product.getSku() + " repetido en la importación", null);
+            } else {
+                valid.add(product);
+                validPositions.add(positions.get(i));
+            }
+        }
+
+        if (valid.isEmpty()) {
+            return true;
+        }
+        List<Long> duplicated = new ArrayList<>();
+        try {
+            QuarkusTransaction.requiringNew().run(() -> {
+                duplicated.clear();
+                // Los productos importados no se añaden a la caché de segundo nivel: solo la ensuciarían
+                productRepository.getSession().setCacheMode(CacheMode.IGNORE);
+                Set<String> existing = productRepository.findExistingSkus(chunkSkus);
+                for (int i = 0; i < valid.size(); i++) {
+                    Product product = valid.get(i);
+                    if (product.getSku() != null && existing.contains(product.getSku())) {
+                        duplicated.add(validPositions.get(i));
+                        continue;
+                    }
+                    productRepository.persist(product);
+                    productChanged.fire(new ProductChangedEvent(product.id, product.getName(), product.isActive()));
+                }
+            });
+        } catch (RuntimeException e) {
+            LOG.warnf(e, "Importación de productos detenida: no se pudo guardar un bloque de %d filas", valid.size());
+            for (Long position : validPositions) {
+                reject(report, position, 500, "No se pudo guardar el bloque de la fila", null);
+            }
+            report.setError("Importación detenida en la fila " + validPositions.get(0) + ": " + e.getMessage());
+            return false;
+        }
+
+        // Los contadores se actualizan solo después de confirmar el bloque
+        report.setImported(report.getImported() + valid.size() - duplicated.size());
+        for (Long position : duplicated) {
+            reject(report, position, 409, "Ya existe un producto con ese SKU", null);
+        }
+        return true;
+    }
+
+    private static Map<String, String> toMap(Set<ConstraintViolation<Product>> violations) {
+        Map<String, String> errors = new HashMap<>();
+        for (ConstraintViolation<Product> violation : violations) {
+            errors.merge(violation.getPropertyPath().toString(), violation.getMessage(),
+                    (error1, error2) -> error1 + "; " + error2);
+        }
+        return errors;
+    }
+
+    private void reject(ImportReport report, long position, int status, String message, Map<String, String> violations) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < maxReportedErrors) {
+            report.getErrors().add(new ItemResult((int) Math.min(position, Integer.MAX_VALUE), status, null,
+                    message, violations));
+        }
+    }
+}
@@ -2,37 +2,236 @@ package org.keniding.service;
 
 import io.quarkus.panache.common.Page;
 import io.quarkus.panache.common.Sort;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.NotFoundException;
+import org.keniding.dto.CursorPage;
+import org.keniding.dto.PagedResponse;
+import org.keniding.dto.ProductFilter;
+import org.keniding.enums.CountStrategy;
 import org.keniding.enums.ProductCategory;
 import org.keniding.model.Product;
 import org.keniding.repository.ProductRepository;
+import org.keniding.search.ProductChangedEvent;
+import org.keniding.search.ProductSearchIndex;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @ApplicationScoped
 public class ProductService {
     private final ProductRepository productRepository;
+    private final ProductSearchIndex searchIndex;
+    private final Event<ProductChangedEvent> productChanged;
+    private final StockAdjustmentCoalescer stockCoalescer;
+    private final ProductCounter productCounter;
 
     @Inject
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, ProductSearchIndex searchIndex,
+                          Event<ProductChangedEvent> productChanged, StockAdjustmentCoalescer stockCoalescer,
+                          ProductCounter productCounter) {
         this.productRepository = productRepository;
+        this.searchIndex = searchIndex;
+        this.productChanged = productChanged;
+        this.stockCoalescer = stockCoalescer;
+        this.productCounter = productCounter;
     }
 
     public List<Product> findAll(int pageIndex, int pageSize, String sortField, boolean ascending) {
         Sort sort = ascending ?
                 Sort.ascending(sortField): Sort.descending(sortField);
 
-        return productRepository.findAllActive(Page.of(pageIndex, pageSize), sort);
+        return productRepository.findByFilter(new ProductFilter(), Page.of(pageIndex, pageSize), sort);
+    }
+
+    /**
+     * Recupera una página de productos que cumplen los criterios del filtro, junto con el
+     * total de coincidencias calculado con la estrategia indicada.
+     * <p>
+     * Con {@link CountStrategy#NONE} no se cuenta: se pide una fila más que el tamaño de página
+     * y su presencia indica si hay página siguiente.
+     *
+     * @param filter Criterios de búsqueda
+     * @param pageIndex Número de página (empieza en 0)
+     * @param pageSize Tamaño de la página
+     * @param sortField Campo por el que ordenar
+     * @param ascending Orden ascendente (true) o descendente (false)
+     * @param countStrategy Forma de calcular el total
+     * @return Respuesta paginada con los productos
+     */
+    public PagedResponse<Product> findByFilter(ProductFilter filter, int pageIndex, int pageSize,
+                                               String sortField, boolean ascending, CountStrategy countStrategy) {
+        checkPage(pageIndex, pageSize);
+        Sort sort = ascending ? Sort.ascending(sortField) : Sort.descending(sortField);
+        int first = pageIndex * pageSize;
+        if (countStrategy == CountStrategy.NONE) {
+            List<Product> products = productRepository.findByFilter(filter, first, pageSize + 1, sort);
+            return withoutTotal(products, pageIndex, pageSize);
+        }
+        List<Product> products = productRepository.findByFilter(filter, first, pageSize, sort);
+        return withTotal(products, filter, pageIndex, pageSize, countStrategy);
+    }
+
+    /**
+     * Recupera una página de productos activos con paginación keyset.
+     * <p>
+     * El cursor es opaco para el cliente: codifica el campo y sentido de ordenación junto con
+     * el valor de ese campo y el id del último producto devuelto.
+     *
+     * @param cursor Cursor {@code next} de la página anterior, o null para la primera página
+     * @param pageSize Tamaño de la página
+     * @param sortField Campo por el que ordenar: name, price o id
+     * @param ascending Orden ascendente (true) o descendente (false)
+     * @return La página con su cursor siguiente, que es null si no hay más productos
+     * @throws IllegalArgumentException si el cursor no corresponde a esta ordenación o los parámetros no son válidos
+     */
+    public CursorPage<Product> findAllKeyset(String cursor, int pageSize, String sortField, boolean ascending) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo");
+        }
+        String prefix = sortField + ":" + (ascending ? "asc" : "desc") + ":";
+        Object lastValue = null;
+        Long lastId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String decoded = decodeCursor(cursor);
+            if (!decoded.startsWith(prefix)) {
+                throw new IllegalArgumentException("El cursor no corresponde a la ordenación " + sortField);
+            }
+            String[] parts = decoded.substring(prefix.length()).split(":", 2);
+            try {
+                lastId = Long.parseLong(parts[0]);
+                lastValue = parseSortValue(sortField, parts.length > 1 ? parts[1] : "");
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor no válido: " + cursor, e);
+            }
+        }
+
+        List<Product> products = productRepository.findAllActiveAfter(sortField, ascending, lastValue, lastId, pageSize + 1);
+        String next = null;
+        if (products.size() > pageSize) {
+            products = products.subList(0, pageSize);
+            Product last = products.get(pageSize - 1);
+            next = encodeCursor(prefix + last.id + ":" + sortValue(sortField, last));
+        }
+        return CursorPage.of(products, pageSize, next);
+    }
+
+    private static Object parseSortValue(String sortField, String value) {
+        return switch (sortField) {
+            case "name" -> value;
+            case "price" -> new BigDecimal(value);
+            default -> null;
+        };
+    }
+
+    private static String sortValue(String sortField, Product product) {
+        return switch (sortField) {
+            case "name" -> product.getName();
+            case "price" -> product.getPrice().toPlainString();
+            default -> "";
+        };
+    }
+
+    private static String encodeCursor(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor no válido: " + cursor, e);
+        }
     }
 
     public List<Product> findByNameContaining(String search) {
         return productRepository.findByNameContaining(search);
     }
 
+    /**
+     * Como {@link #findByFilter(ProductFilter, int, int, String, boolean, CountStrategy)}, pero
+     * devuelve solo los campos indicados de cada producto.
+     *
+     * @param filter Criterios de búsqueda
+     * @param fields Campos a devolver
+     * @param pageIndex Número de página (empieza en 0)
+     * @param pageSize Tamaño de la página
+     * @param sortField Campo por el que ordenar
+     * @param ascending Orden ascendente (true) o descendente (false)
+     * @param countStrategy Forma de calcular el total
+     * @return Respuesta paginada con un mapa campo -> valor por producto
+     */
+    public PagedResponse<Map<String, Object>> findFieldsByFilter(ProductFilter filter, List<String> fields,
+                                                                 int pageIndex, int pageSize,
+                                                                 String sortField, boolean ascending,
+                                                                 CountStrategy countStrategy) {
+        checkPage(pageIndex, pageSize);
+        Sort sort = ascending ? Sort.ascending(sortField) : Sort.descending(sortField);
+        int first = pageIndex * pageSize;
+        if (countStrategy == CountStrategy.NONE) {
+            List<Map<String, Object>> rows = productRepository.findFieldsByFilter(filter, fields, first,
+                    pageSize + 1, sort);
+            return withoutTotal(rows, pageIndex, pageSize);
+        }
+        List<Map<String, Object>> rows = productRepository.findFieldsByFilter(filter, fields, first, pageSize, sort);
+        return withTotal(rows, filter, pageIndex, pageSize, countStrategy);
+    }
+
+    private <T> PagedResponse<T> withTotal(List<T> content, ProductFilter filter, int pageIndex, int pageSize,
+                                           CountStrategy countStrategy) {
+        ProductCounter.Count count = productCounter.count(filter, countStrategy);
+        return PagedResponse.of(content, count.total(), pageIndex, pageSize, count.strategy());
+    }
+
+    private static <T> PagedResponse<T> withoutTotal(List<T> content, int pageIndex, int pageSize) {
+        boolean hasNext = content.size() > pageSize;
+        return PagedResponse.withoutTotal(hasNext ? content.subList(0, pageSize) : content,
+                hasNext, pageIndex, pageSize);
+    }
+
+    private static void checkPage(int pageIndex, int pageSize) {
+        if (pageIndex < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Página o tamaño de página no válidos");
+        }
+    }
+
+    /**
+     * Busca productos activos por nombre con el índice de trigramas, ordenados por relevancia.
+     * <p>
+     * Las consultas demasiado cortas para el índice se resuelven en la base de datos con el
+     * mismo {@code LIKE} que el filtro por nombre, ordenadas por nombre.
+     *
+     * @param query Texto a buscar
+     * @param pageIndex Número de página (empieza en 0)
+     * @param pageSize Tamaño de la página
+     * @return Respuesta paginada con los productos de la página y el total de coincidencias
+     */
+    public PagedResponse<Product> search(String query, int pageIndex, int pageSize) {
+        if (query == null || query.trim().isEmpty()) {
+            throw new IllegalArgumentException("El texto de búsqueda no puede estar vacío");
+        }
+        if (pageIndex < 0 || pageSize <= 0) {
+            throw new IllegalArgumentException("Página o tamaño de página no válidos");
+        }
+        if (!ProductSearchIndex.supports(query)) {
+            ProductFilter filter = new ProductFilter();
+            filter.setName(query);
+            filter.setActive(true);
+            List<Product> products = productRepository.findByFilter(filter, pageIndex * pageSize, pageSize,
+                    Sort.ascending("name"));
+            return PagedResponse.of(products, productRepository.countByFilter(filter), pageIndex, pageSize);
+        }
+        ProductSearchIndex.Result result = searchIndex.search(query, pageIndex, pageSize);
+        return PagedResponse.of(productRepository.findActiveByIds(result.productIds()), result.total(), pageIndex, pageSize);
+    }
+
     public List<Product> findByCategory(ProductCategory category) {
         return productRepository.findByCategory(category);
     }
@@ -56,6 +255,7 @@ public class ProductService {
         }
 
         productRepository.persist(product);
+        productChanged.fire(new ProductChangedEvent(product.id, product.getName(), product.isActive()));
         return product;
     }
 
@@ -79,6 +279,7 @@ public class ProductService {
         existingProduct.setImageUrl(product.getImageUrl());
         existingProduct.setActive(product.isActive());
 
+        productChanged.fire(new ProductChangedEvent(id, existingProduct.getName(), existingProduct.isActive()));
         return existingProduct;
     }
 
@@ -86,26 +287,43 @@ public class ProductService {
     public void delete(Long id) {
         Product product = findById(id);
         product.setActive(false);
+        productChanged.fire(new ProductChangedEvent(id, product.getName(), false));
     }
 
     @Transactional
     public void deleteHard(Long id) {
-        productRepository.deleteById(id);
+        // Se elimina la entidad en lugar de un DELETE masivo por id: así Hibernate solo invalida
+        // este producto en la caché de segundo nivel y no toda la región
+        productRepository.findByIdOptional(id).ifPresent(productRepository::delete);
+        productChanged.fire(new ProductChangedEvent(id, null, false));
     }
 
     public long count() {
         return productRepository.countActive();
     }
 
-    @Transactional
+    /**
+     * Suma {@code quantity} al stock de un producto sin que el stock pueda quedar negativo.
+     * <p>
+     * Por defecto la comprobación y el incremento se hacen con un único UPDATE condicional, sin
+     * leer antes la fila. Si {@code products.stock.coalescing.enabled} está activo, los ajustes
+     * concurrentes del mismo producto se agrupan en una escritura por lote.
+     *
+     * @param id ID del producto
+     * @param quantity Cantidad a añadir (positivo) o restar (negativo)
+     * @return El producto con el stock actualizado
+     */
     public Product updateStock(Long id, int quantity) {
-        Product product = findById(id);
-
-        if (product.getStock() + quantity < 0) {
-            throw new IllegalArgumentException("Stock amount excedes stock");
+        if (stockCoalescer.isEnabled()) {
+            stockCoalescer.adjust(id, quantity);
+        } else {
+            QuarkusTransaction.joiningExisting().run(() -> {
+                if (productRepository.adjustStock(id, quantity) == 0) {
+                    findById(id);
+                    throw new IllegalArgumentException("Stock amount excedes stock");
+                }
+            });
         }
-
-        product.setStock(product.getStock() + quantity);
-        return product;
+        return findById(id);
     }
 }
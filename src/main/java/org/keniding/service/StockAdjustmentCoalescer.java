@@ -0,0 +1,159 @@
+package org.keniding.service;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.keniding.repository.ProductRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Agrupa los ajustes de stock concurrentes sobre un mismo producto en una sola escritura.
+ * <p>
+ * Cada petición deja su ajuste en la cola del producto. El primer hilo que encuentra la cola
+ * libre actúa como combinador: en una transacción bloquea la fila, aplica en orden hasta
+ * {@code products.stock.coalescing.max-batch} ajustes pendientes (rechazando los que dejarían
+ * el stock negativo) y escribe el resultado con un único UPDATE. El combinador sigue con nuevos
+ * lotes mientras la cola tenga ajustes y, al soltar el papel, vuelve a mirarla por si entró
+ * alguno justo entonces. El resto de hilos se quedan parados esperando su resultado, de modo
+ * que con un producto muy solicitado la fila se bloquea una vez por lote y no una vez por
+ * petición.
+ * <p>
+ * Se activa con {@code products.stock.coalescing.enabled}. Las colas por producto no se
+ * eliminan: su número está acotado por el de productos cuyo stock se ha ajustado.
+ */
+@ApplicationScoped
+public class StockAdjustmentCoalescer {
+    @ConfigProperty(name = "products.stock.coalescing.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "products.stock.coalescing.max-batch", defaultValue = "256")
+    int maxBatch;
+
+    @Inject
+    ProductRepository productRepository;
+
+    private final Map<Long, Lane> lanes = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Ajusta el stock de un producto y espera a que el lote que lo incluye se confirme.
+     * <p>
+     * No debe invocarse dentro de una transacción: el lote se escribe en una transacción propia.
+     *
+     * @param id ID del producto
+     * @param delta Cantidad a sumar (negativa para restar)
+     * @return El stock resultante tras aplicar este ajuste
+     * @throws NotFoundException si el producto no existe
+     * @throws IllegalArgumentException si el stock quedaría negativo
+     */
+    public int adjust(Long id, int delta) {
+        Lane lane = lanes.computeIfAbsent(id, key -> new Lane());
+        Adjustment adjustment = new Adjustment(delta);
+        lane.pending.add(adjustment);
+        // Si otro hilo tiene el papel de combinador, volverá a mirar la cola después de soltarlo,
+        // así que este ajuste no se queda sin aplicar aunque el CAS falle
+        while (!lane.pending.isEmpty() && lane.combining.compareAndSet(false, true)) {
+            try {
+                while (!lane.pending.isEmpty()) {
+                    drain(id, lane);
+                }
+            } finally {
+                lane.combining.set(false);
+            }
+        }
+        try {
+            return adjustment.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando el ajuste de stock", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void drain(Long id, Lane lane) {
+        List<Adjustment> batch = new ArrayList<>();
+        Adjustment next;
+        while (batch.size() < maxBatch && (next = lane.pending.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            inTransaction(() -> apply(id, batch));
+        } catch (RuntimeException e) {
+            batch.forEach(adjustment -> adjustment.result.completeExceptionally(e));
+            return;
+        }
+        // Los resultados se publican solo después de confirmar la transacción
+        for (Adjustment adjustment : batch) {
+            if (adjustment.rejection != null) {
+                adjustment.result.completeExceptionally(adjustment.rejection);
+            } else {
+                adjustment.result.complete(adjustment.stock);
+            }
+        }
+    }
+
+    /**
+     * Ejecuta el lote en una transacción nueva. Es un método aparte para que los tests puedan
+     * sustituirlo sin arrancar el gestor de transacciones.
+     */
+    void inTransaction(Runnable work) {
+        QuarkusTransaction.requiringNew().run(work);
+    }
+
+    private void apply(Long id, List<Adjustment> batch) {
+        Optional<Integer> locked = productRepository.lockStock(id);
+        if (locked.isEmpty()) {
+            NotFoundException notFound = new NotFoundException("Product not found with id: " + id);
+            batch.forEach(adjustment -> adjustment.rejection = notFound);
+            return;
+        }
+        int initial = locked.get();
+        int stock = initial;
+        for (Adjustment adjustment : batch) {
+            if (stock + adjustment.delta < 0) {
+                adjustment.rejection = new IllegalArgumentException("Stock amount excedes stock");
+            } else {
+                stock += adjustment.delta;
+                adjustment.stock = stock;
+            }
+        }
+        if (stock != initial) {
+            productRepository.setStock(id, stock);
+        }
+    }
+
+    private static final class Lane {
+        private final Queue<Adjustment> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean combining = new AtomicBoolean();
+    }
+
+    private static final class Adjustment {
+        private final int delta;
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+        private int stock;
+        private RuntimeException rejection;
+
+        Adjustment(int delta) {
+            this.delta = delta;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package org.keniding.controller;
+
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.validation.Valid;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.jboss.resteasy.reactive.RestStreamElementType;
+import org.keniding.dto.PagedResponse;
+import org.keniding.dto.ProductFilter;
+import org.keniding.enums.ProductCategory;
+import org.keniding.model.Product;
+import org.keniding.service.ReactiveProductService;
+
+import java.math.BigDecimal;
+
+/**
+ * Controlador REST no bloqueante para productos, equivalente a {@link ProductController}.
+ * <p>
+ * Los métodos devuelven {@link Uni} o {@link Multi} y se ejecutan en el event loop: mientras
+ * la base de datos responde no se ocupa ningún hilo del pool de workers. Se compila con el
+ * perfil Maven {@code reactive} y se activa con {@code products.reactive.enabled=true}; convive
+ * con la pila bloqueante, que sigue en {@code /api/products}, para poder compararlas.
+ */
+@Path("/api/reactive/products")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+@IfBuildProperty(name = "products.reactive.enabled", stringValue = "true")
+public class ReactiveProductController {
+
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final ReactiveProductService productService;
+
+    @Inject
+    public ReactiveProductController(ReactiveProductService productService) {
+        this.productService = productService;
+    }
+
+    /**
+     * Recupera productos con paginación, ordenamiento y los mismos filtros combinables que
+     * {@link ProductController}. La búsqueda por nombre se resuelve con LIKE en la base de
+     * datos, no con el índice de trigramas.
+     *
+     * @param page Número de página (empieza en 0)
+     * @param size Tamaño de la página
+     * @param sort Campo por el que ordenar
+     * @param asc Orden ascendente (true) o descendente (false)
+     * @param name Texto contenido en el nombre (opcional)
+     * @param category Filtro por categoría (opcional)
+     * @param minPrice Precio mínimo inclusive (opcional)
+     * @param maxPrice Precio máximo inclusive (opcional)
+     * @param active Estado: true (por defecto), false o all
+     * @return Respuesta paginada con productos
+     */
+    @GET
+    public Uni<Response> getProducts(
+            @QueryParam("page") @DefaultValue("0") int page,
+            @QueryParam("size") @DefaultValue("10") int size,
+            @QueryParam("sort") @DefaultValue("name") String sort,
+            @QueryParam("asc") @DefaultValue("true") boolean asc,
+            @QueryParam("name") String name,
+            @QueryParam("category") String category,
+            @QueryParam("minPrice") BigDecimal minPrice,
+            @QueryParam("maxPrice") BigDecimal maxPrice,
+            @QueryParam("active") @DefaultValue("true") String active) {
+
+        ProductFilter filter = new ProductFilter();
+        filter.setName(name);
+        filter.setMinPrice(minPrice);
+        filter.setMaxPrice(maxPrice);
+        try {
+            filter.setActive(ProductFilter.parseActive(active));
+        } catch (IllegalArgumentException e) {
+            return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(e.getMessage())
+                    .build());
+        }
+        if (category != null && !category.trim().isEmpty()) {
+            try {
+                filter.setCategory(ProductCategory.valueOf(category.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST)
+                        .entity("Categoría no válida: " + category)
+                        .build());
+            }
+        }
+
+        Uni<PagedResponse<Product>> response = productService.findByFilter(filter, page, size, sort, asc);
+        return response.map(body -> Response.ok(body).build());
+    }
+
+    /**
+     * Emite todos los productos activos como NDJSON según se leen de la base de datos.
+     *
+     * @return Flujo de productos
+     */
+    @GET
+    @Path("/export")
+    @Produces(APPLICATION_NDJSON)
+    @RestStreamElementType(MediaType.APPLICATION_JSON)
+    public Multi<Product> exportProducts() {
+        return productService.streamActive();
+    }
+
+    /**
+     * Obtiene un producto por su ID.
+     *
+     * @param id ID del producto
+     * @return Producto encontrado
+     */
+    @GET
+    @Path("/{id}")
+    public Uni<Product> getProductById(@PathParam("id") Long id) {
+        return productService.findById(id);
+    }
+
+    /**
+     * Obtiene un producto por su SKU.
+     *
+     * @param sku SKU del producto
+     * @return Producto encontrado
+     */
+    @GET
+    @Path("/sku/{sku}")
+    public Uni<Response> getProductBySku(@PathParam("sku") String sku) {
+        return productService.findBySku(sku)
+                .map(product -> product != null
+                        ? Response.ok(product).build()
+                        : Response.status(Response.Status.NOT_FOUND)
+                                .entity("Producto no encontrado con SKU: " + sku)
+                                .build());
+    }
+
+    /**
+     * Crea un nuevo producto.
+     *
+     * @param product Datos del producto a crear
+     * @return Producto creado
+     */
+    @POST
+    public Uni<Response> createProduct(@Valid Product product) {
+        return productService.create(product)
+                .map(created -> Response.status(Response.Status.CREATED).entity(created).build());
+    }
+
+    /**
+     * Actualiza un producto existente.
+     *
+     * @param id ID del producto a actualizar
+     * @param product Nuevos datos del producto
+     * @return Producto actualizado
+     */
+    @PUT
+    @Path("/{id}")
+    public Uni<Product> updateProduct(@PathParam("id") Long id, @Valid Product product) {
+        return productService.update(id, product);
+    }
+
+    /**
+     * Desactiva un producto (borrado lógico).
+     *
+     * @param id ID del producto a desactivar
+     * @return Respuesta vacía
+     */
+    @DELETE
+    @Path("/{id}")
+    public Uni<Response> deleteProduct(@PathParam("id") Long id) {
+        return productService.delete(id).replaceWith(Response.noContent().build());
+    }
+
+    /**
+     * Actualiza el stock de un producto.
+     *
+     * @param id ID del producto
+     * @param quantity Cantidad a añadir (positivo) o restar (negativo)
+     * @return Producto con stock actualizado
+     */
+    @PATCH
+    @Path("/{id}/stock")
+    public Uni<Product> updateStock(
+            @PathParam("id") Long id,
+            @QueryParam("quantity") int quantity) {
+        return productService.updateStock(id, quantity);
+    }
+}
@@ -0,0 +1,312 @@
+package org.keniding.repository;
+
+import io.quarkus.panache.common.Sort;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.sqlclient.Pool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.SqlConnection;
+import io.vertx.mutiny.sqlclient.Tuple;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.keniding.dto.ProductFilter;
+import org.keniding.enums.ProductCategory;
+import org.keniding.model.Product;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Acceso no bloqueante a la tabla de productos con el cliente SQL reactivo de Vert.x.
+ * <p>
+ * Las consultas se envían por el pool reactivo y sus resultados llegan en el event loop, así
+ * que ningún hilo queda esperando a la base de datos. Las filas se convierten a {@link Product}
+ * sin pasar por Hibernate: no hay contexto de persistencia ni caché de segundo nivel.
+ * <p>
+ * Los ids se reservan por bloques de la misma tabla de secuencia que usa Hibernate y con la
+ * misma interpretación que su optimizador {@code pooled}, de modo que los productos creados
+ * por ambas pilas nunca comparten id.
+ */
+@ApplicationScoped
+public class ReactiveProductRepository {
+    private static final String COLUMNS = "id, name, description, price, stock, sku, category, created_at,"
+            + " updated_at, image_url, active";
+
+    /**
+     * Columna de la tabla para cada campo por el que se puede ordenar.
+     */
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "id", "name", "name", "price", "price", "stock", "stock", "sku", "sku",
+            "category", "category", "createdAt", "created_at", "updatedAt", "updated_at");
+
+    /**
+     * Tamaño de bloque de la secuencia, el {@code allocationSize} por defecto de Hibernate.
+     */
+    private static final int ID_BLOCK_SIZE = 50;
+
+    @ConfigProperty(name = "products.reactive.id-table", defaultValue = "Product_SEQ")
+    String idTable;
+
+    @Inject
+    Pool pool;
+
+    private long nextId;
+    private long lastId = -1;
+
+    /**
+     * Recupera los productos que cumplen el filtro en el rango indicado.
+     *
+     * @param filter Criterios de búsqueda, con el mismo significado que en {@link ProductRepository}
+     * @param first Posición de la primera fila (empieza en 0)
+     * @param maxResults Número máximo de filas
+     * @param sort Ordenación; los campos deben estar en {@link ProductRepository#SORT_FIELDS}
+     * @return Los productos del rango
+     */
+    public Uni<List<Product>> findByFilter(ProductFilter filter, int first, int maxResults, Sort sort) {
+        List<Object> parameters = new ArrayList<>();
+        String sql = "SELECT " + COLUMNS + " FROM products WHERE " + where(filter, parameters)
+                + " ORDER BY " + orderBy(sort) + " LIMIT ? OFFSET ?";
+        parameters.add(maxResults);
+        parameters.add(first);
+        return pool.preparedQuery(sql).execute(Tuple.from(parameters)).map(ReactiveProductRepository::toProducts);
+    }
+
+    /**
+     * Cuenta los productos que cumplen el filtro.
+     *
+     * @param filter Criterios de búsqueda
+     * @return Número de productos
+     */
+    public Uni<Long> countByFilter(ProductFilter filter) {
+        List<Object> parameters = new ArrayList<>();
+        return pool.preparedQuery("SELECT COUNT(*) FROM products WHERE " + where(filter, parameters))
+                .execute(Tuple.from(parameters))
+                .map(rows -> rows.iterator().next().getLong(0));
+    }
+
+    /**
+     * Busca un producto por su id.
+     *
+     * @param id ID del producto
+     * @return El producto, o null si no existe
+     */
+    public Uni<Product> findById(Long id) {
+        return pool.preparedQuery("SELECT " + COLUMNS + " FROM products WHERE id = ?")
+                .execute(Tuple.of(id))
+                .map(ReactiveProductRepository::firstOrNull);
+    }
+
+    /**
+     * Busca un producto por su SKU.
+     *
+     * @param sku SKU del producto
+     * @return El producto, o null si no existe
+     */
+    public Uni<Product> findBySku(String sku) {
+        return pool.preparedQuery("SELECT " + COLUMNS + " FROM products WHERE sku = ?")
+                .execute(Tuple.of(sku))
+                .map(ReactiveProductRepository::firstOrNull);
+    }
+
+    /**
+     * Recorre todos los productos activos por id con un cursor, pidiendo las filas por bloques
+     * según las consume el suscriptor.
+     *
+     * @param fetchSize Filas por viaje a la base de datos
+     * @return Los productos activos ordenados por id
+     */
+    public Multi<Product> streamActive(int fetchSize) {
+        return pool.getConnection().onItem().transformToMulti(connection -> stream(connection, fetchSize)
+                .onTermination().call(connection::close));
+    }
+
+    private static Multi<Product> stream(SqlConnection connection, int fetchSize) {
+        return connection.prepare("SELECT " + COLUMNS + " FROM products WHERE active = TRUE ORDER BY id")
+                .onItem().transformToMulti(statement -> statement.createStream(fetchSize).toMulti())
+                .map(ReactiveProductRepository::toProduct);
+    }
+
+    /**
+     * Inserta un producto asignándole id y fechas de creación y modificación.
+     *
+     * @param product El producto a insertar; se modifica con los valores asignados
+     * @return El mismo producto
+     */
+    public Uni<Product> insert(Product product) {
+        return nextId().flatMap(id -> {
+            LocalDateTime now = LocalDateTime.now();
+            product.id = id;
+            product.setCreatedAt(now);
+            product.setUpdatedAt(now);
+            return pool.preparedQuery("INSERT INTO products (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")
+                    .execute(Tuple.from(Arrays.asList(id, product.getName(), product.getDescription(),
+                            product.getPrice(), product.getStock(), product.getSku(), categoryName(product),
+                            now, now, product.getImageUrl(), product.isActive())))
+                    .replaceWith(product);
+        });
+    }
+
+    /**
+     * Sobrescribe los campos editables de un producto.
+     *
+     * @param product El producto con su id y los nuevos valores
+     * @return true si el producto existía
+     */
+    public Uni<Boolean> update(Product product) {
+        LocalDateTime now = LocalDateTime.now();
+        product.setUpdatedAt(now);
+        return pool.preparedQuery("UPDATE products SET name = ?, description = ?, price = ?, stock = ?, sku = ?,"
+                        + " category = ?, image_url = ?, active = ?, updated_at = ? WHERE id = ?")
+                .execute(Tuple.from(Arrays.asList(product.getName(), product.getDescription(), product.getPrice(),
+                        product.getStock(), product.getSku(), categoryName(product), product.getImageUrl(),
+                        product.isActive(), now, product.id)))
+                .map(rows -> rows.rowCount() > 0);
+    }
+
+    /**
+     * Marca un producto como inactivo.
+     *
+     * @param id ID del producto
+     * @return true si el producto existía
+     */
+    public Uni<Boolean> deactivate(Long id) {
+        return pool.preparedQuery("UPDATE products SET active = FALSE, updated_at = ? WHERE id = ?")
+                .execute(Tuple.of(LocalDateTime.now(), id))
+                .map(rows -> rows.rowCount() > 0);
+    }
+
+    /**
+     * Suma {@code delta} al stock con un UPDATE condicional que no deja el stock negativo,
+     * igual que {@link ProductRepository#adjustStock(Long, int)}.
+     *
+     * @param id ID del producto
+     * @param delta Cantidad a sumar (negativa para restar)
+     * @return Número de filas modificadas: 0 si el producto no existe o no hay stock suficiente
+     */
+    public Uni<Integer> adjustStock(Long id, int delta) {
+        return pool.preparedQuery("UPDATE products SET stock = stock + ?, updated_at = ?"
+                        + " WHERE id = ? AND stock + ? >= 0")
+                .execute(Tuple.of(delta, LocalDateTime.now(), id, delta))
+                .map(RowSet::rowCount);
+    }
+
+    /**
+     * Devuelve el siguiente id libre, reservando un bloque nuevo cuando se agota el actual.
+     * <p>
+     * Hibernate lee el valor de la tabla, escribe ese valor más el tamaño de bloque y usa los
+     * ids {@code (valor - bloque, valor]}; aquí se hace lo mismo. Si dos peticiones agotan el
+     * bloque a la vez, ambas reservan uno y el segundo sustituye al primero: se pierden ids,
+     * pero nunca se repiten.
+     */
+    private Uni<Long> nextId() {
+        synchronized (this) {
+            if (nextId <= lastId) {
+                return Uni.createFrom().item(nextId++);
+            }
+        }
+        return pool.withTransaction(connection -> connection
+                        .preparedQuery("SELECT next_val FROM " + idTable + " FOR UPDATE")
+                        .execute()
+                        .flatMap(rows -> {
+                            long high = rows.iterator().next().getLong(0);
+                            return connection.preparedQuery("UPDATE " + idTable + " SET next_val = ?")
+                                    .execute(Tuple.of(high + ID_BLOCK_SIZE))
+                                    .replaceWith(high);
+                        }))
+                .map(high -> {
+                    synchronized (this) {
+                        nextId = Math.max(1, high - ID_BLOCK_SIZE + 1);
+                        lastId = high;
+                        return nextId++;
+                    }
+                });
+    }
+
+    /**
+     * Construye la condición SQL del filtro con parámetros posicionales, equivalente a la de
+     * {@link ProductRepository}.
+     */
+    private static String where(ProductFilter filter, List<Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.getActive() != null) {
+            conditions.add("active = ?");
+            parameters.add(filter.getActive());
+        }
+        if (filter.hasName()) {
+            conditions.add("LOWER(name) LIKE ?");
+            parameters.add("%" + filter.getName().trim().toLowerCase(Locale.ROOT) + "%");
+        }
+        if (filter.getCategory() != null) {
+            conditions.add("category = ?");
+            parameters.add(filter.getCategory().name());
+        }
+        if (filter.getMinPrice() != null) {
+            conditions.add("price >= ?");
+            parameters.add(filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            conditions.add("price <= ?");
+            parameters.add(filter.getMaxPrice());
+        }
+        return conditions.isEmpty() ? "1 = 1" : String.join(" AND ", conditions);
+    }
+
+    private static String orderBy(Sort sort) {
+        List<String> columns = new ArrayList<>();
+        boolean hasId = false;
+        for (Sort.Column column : sort.getColumns()) {
+            String name = SORT_COLUMNS.get(column.getName());
+            if (name == null) {
+                throw new IllegalArgumentException("Campo de ordenación no admitido: " + column.getName());
+            }
+            hasId |= "id".equals(name);
+            columns.add(name + (column.getDirection() == Sort.Direction.Descending ? " DESC" : " ASC"));
+        }
+        if (!hasId) {
+            // Desempate estable: sin él, filas con el mismo valor podrían repetirse entre páginas
+            columns.add("id ASC");
+        }
+        return columns.stream().collect(Collectors.joining(", "));
+    }
+
+    private static String categoryName(Product product) {
+        return product.getCategory() == null ? null : product.getCategory().name();
+    }
+
+    private static List<Product> toProducts(RowSet<Row> rows) {
+        List<Product> products = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            products.add(toProduct(row));
+        }
+        return products;
+    }
+
+    private static Product firstOrNull(RowSet<Row> rows) {
+        return rows.size() == 0 ? null : toProduct(rows.iterator().next());
+    }
+
+    private static Product toProduct(Row row) {
+        Product product = new Product();
+        product.id = row.getLong("id");
+        product.setName(row.getString("name"));
+        product.setDescription(row.getString("description"));
+        product.setPrice(row.getBigDecimal("price"));
+        product.setStock(row.getInteger("stock"));
+        product.setSku(row.getString("sku"));
+        product.setCategory(ProductCategory.valueOf(row.getString("category")));
+        product.setCreatedAt(row.getLocalDateTime("created_at"));
+        product.setUpdatedAt(row.getLocalDateTime("updated_at"));
+        product.setImageUrl(row.getString("image_url"));
+        // Hibernate crea la columna como BIT(1) en MySQL; el cliente puede devolverla como número
+        Object active = row.getValue("active");
+        product.setActive(active instanceof Boolean value ? value : ((Number) active).longValue() != 0);
+        return product;
+    }
+}
@@ -0,0 +1,213 @@
+package org.keniding.service;
+
+import io.quarkus.panache.common.Sort;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.keniding.dto.PagedResponse;
+import org.keniding.dto.ProductFilter;
+import org.keniding.model.Product;
+import org.keniding.repository.ReactiveProductRepository;
+import org.keniding.search.ProductChangedEvent;
+
+import java.util.Objects;
+
+/**
+ * Variante no bloqueante de {@link ProductService} sobre {@link ReactiveProductRepository}.
+ * <p>
+ * Cada operación devuelve un {@link Uni} que se completa cuando responde la base de datos,
+ * sin ocupar un hilo mientras tanto. Las escrituras disparan {@link ProductChangedEvent} una
+ * vez aplicadas, para que el índice de búsqueda y los conteos en caché vean los cambios, y
+ * desalojan el producto de la caché de segundo nivel que usa la pila bloqueante.
+ */
+@ApplicationScoped
+public class ReactiveProductService {
+    private final ReactiveProductRepository productRepository;
+    private final Event<ProductChangedEvent> productChanged;
+    private final SessionFactory sessionFactory;
+
+    @ConfigProperty(name = "products.export.fetch-size", defaultValue = "1000")
+    int exportFetchSize;
+
+    @Inject
+    public ReactiveProductService(ReactiveProductRepository productRepository,
+                                  Event<ProductChangedEvent> productChanged, SessionFactory sessionFactory) {
+        this.productRepository = productRepository;
+        this.productChanged = productChanged;
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Recupera una página de productos que cumplen el filtro junto con el total exacto.
+     *
+     * @param filter Criterios de búsqueda
+     * @param pageIndex Número de página (empieza en 0)
+     * @param pageSize Tamaño de la página
+     * @param sortField Campo por el que ordenar
+     * @param ascending Orden ascendente (true) o descendente (false)
+     * @return Respuesta paginada con los productos
+     */
+    public Uni<PagedResponse<Product>> findByFilter(ProductFilter filter, int pageIndex, int pageSize,
+                                                    String sortField, boolean ascending) {
+        if (pageIndex < 0 || pageSize <= 0) {
+            return Uni.createFrom().failure(new IllegalArgumentException("Página o tamaño de página no válidos"));
+        }
+        Sort sort = ascending ? Sort.ascending(sortField) : Sort.descending(sortField);
+        // Página y conteo van por conexiones distintas del pool y se ejecutan a la vez
+        return Uni.combine().all()
+                .unis(productRepository.findByFilter(filter, pageIndex * pageSize, pageSize, sort),
+                        productRepository.countByFilter(filter))
+                .asTuple()
+                .map(result -> PagedResponse.of(result.getItem1(), result.getItem2(), pageIndex, pageSize));
+    }
+
+    public Uni<Product> findById(Long id) {
+        return productRepository.findById(id)
+                .onItem().ifNull().failWith(() -> new NotFoundException("Product not found with id: " + id));
+    }
+
+    /**
+     * Busca un producto por su SKU.
+     *
+     * @param sku SKU del producto
+     * @return El producto, o null si no existe
+     */
+    public Uni<Product> findBySku(String sku) {
+        return productRepository.findBySku(sku);
+    }
+
+    /**
+     * Emite todos los productos activos ordenados por id, leídos con un cursor.
+     *
+     * @return Los productos activos
+     */
+    public Multi<Product> streamActive() {
+        return productRepository.streamActive(exportFetchSize);
+    }
+
+    public Uni<Product> create(Product product) {
+        Uni<Void> skuCheck = product.getSku() == null || product.getSku().isEmpty()
+                ? Uni.createFrom().voidItem()
+                : productRepository.findBySku(product.getSku())
+                        .invoke(existing -> {
+                            if (existing != null) {
+                                throw new IllegalArgumentException("Product with SKU " + product.getSku() + " already exists");
+                            }
+                        })
+                        .replaceWithVoid();
+        return skuCheck
+                .flatMap(ignored -> productRepository.insert(product))
+                .invoke(created -> productChanged.fire(new ProductChangedEvent(created.id, created.getName(),
+                        created.isActive())));
+    }
+
+    public Uni<Product> update(Long id, Product product) {
+        return findById(id)
+                .flatMap(existing -> {
+                    if (product.getSku() == null || product.getSku().equals(existing.getSku())) {
+                        return Uni.createFrom().item(existing);
+                    }
+                    return productRepository.findBySku(product.getSku()).map(other -> {
+                        if (other != null) {
+                            throw new IllegalArgumentException("Ya existe un producto con el SKU: " + product.getSku());
+                        }
+                        return existing;
+                    });
+                })
+                .flatMap(existing -> {
+                    String previousSku = existing.getSku();
+                    existing.setName(product.getName());
+                    existing.setDescription(product.getDescription());
+                    existing.setPrice(product.getPrice());
+                    existing.setStock(product.getStock());
+                    existing.setSku(product.getSku());
+                    existing.setCategory(product.getCategory());
+                    existing.setImageUrl(product.getImageUrl());
+                    existing.setActive(product.isActive());
+                    return productRepository.update(existing).map(updated -> {
+                        if (!updated) {
+                            throw new NotFoundException("Product not found with id: " + id);
+                        }
+                        if (!Objects.equals(previousSku, existing.getSku())) {
+                            evictSku(previousSku);
+                            evictSku(existing.getSku());
+                        }
+                        return existing;
+                    });
+                })
+                .invoke(updated -> changed(id, updated.getName(), updated.isActive()));
+    }
+
+    public Uni<Void> delete(Long id) {
+        return findById(id)
+                .flatMap(product -> productRepository.deactivate(id)
+                        .invoke(() -> changed(id, product.getName(), false)))
+                .replaceWithVoid();
+    }
+
+    /**
+     * Suma {@code quantity} al stock de un producto sin que el stock pueda quedar negativo,
+     * con un único UPDATE condicional.
+     *
+     * @param id ID del producto
+     * @param quantity Cantidad a añadir (positivo) o restar (negativo)
+     * @return El producto con el stock actualizado
+     */
+    public Uni<Product> updateStock(Long id, int quantity) {
+        return productRepository.adjustStock(id, quantity)
+                .flatMap(updated -> {
+                    if (updated == 0) {
+                        return findById(id).invoke(product -> {
+                            throw new IllegalArgumentException("Stock amount excedes stock");
+                        });
+                    }
+                    evict(id);
+                    return findById(id);
+                });
+    }
+
+    private void changed(Long id, String name, boolean active) {
+        evict(id);
+        productChanged.fire(new ProductChangedEvent(id, name, active));
+    }
+
+    /**
+     * Desaloja el producto de la caché de segundo nivel de Hibernate, que no ve las escrituras
+     * hechas con el cliente reactivo.
+     */
+    private void evict(Long id) {
+        sessionFactory.getCache().evictEntityData(Product.class, id);
+    }
+
+    /**
+     * Desaloja la correspondencia SKU -> id de un SKU de la caché de segundo nivel. Solo hace
+     * falta cuando una modificación cambia el SKU, para el anterior y para el nuevo.
+     * <p>
+     * La API pública de la caché solo desaloja todas las correspondencias de la entidad; la
+     * clave de una sola se genera con una sesión sin estado, que no abre conexión.
+     */
+    private void evictSku(String sku) {
+        if (sku == null) {
+            return;
+        }
+        EntityPersister persister = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel().getEntityDescriptor(Product.class);
+        NaturalIdDataAccess access = persister.getNaturalIdCacheAccessStrategy();
+        if (access == null) {
+            return;
+        }
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            access.evict(access.generateCacheKey(sku, persister, (SharedSessionContractImplementor) session));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.keniding.controller;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+
+/**
+ * Un NDJSON que se vacía antes de llegar al umbral de compresión sale igualmente en gzip.
+ */
+@QuarkusTest
+class CompressionStreamingTest {
+
+    @Test
+    void flushedNdjsonStreamIsGzipped() {
+        given()
+                .header("Accept-Encoding", "gzip")
+                .queryParam("count", 5)
+                .queryParam("seed", 42)
+                .queryParam("format", "ndjson")
+                .when().get("/api/performance/persons/stream")
+                .then()
+                .statusCode(200)
+                .header("Content-Encoding", is("gzip"))
+                .contentType(containsString("application/x-ndjson"));
+    }
+}
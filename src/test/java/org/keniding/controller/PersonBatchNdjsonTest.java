@@ -0,0 +1,40 @@
+package org.keniding.controller;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+
+/**
+ * Una línea NDJSON mal formada detiene el lote, pero la respuesta conserva lo ya guardado.
+ */
+@QuarkusTest
+class PersonBatchNdjsonTest {
+
+    @Test
+    void malformedLineStopsTheBatchAndKeepsEarlierResults() {
+        String body = """
+                {"name":"Ana","lastName":"García","age":30,"height":1.65,"weight":60,"birthDate":"1994-05-01"}
+                {"name":"Luis","lastName":"Pérez","age":41,
+                {"name":"Eva","lastName":"Ruiz","age":25,"height":1.70,"weight":58,"birthDate":"1999-01-01"}
+                """;
+
+        given()
+                .contentType("application/x-ndjson")
+                .body(body)
+                .when().post("/api/persons/batch")
+                .then()
+                .statusCode(200)
+                .body("succeeded", is(1))
+                .body("failed", is(1))
+                .body("items[0].index", is(0))
+                .body("items[0].status", is(201))
+                .body("items[0].id", notNullValue())
+                .body("items[1].index", is(1))
+                .body("items[1].status", is(400))
+                .body("items[1].message", containsString("NDJSON no válido"));
+    }
+}
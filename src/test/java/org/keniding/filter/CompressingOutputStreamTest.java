@@ -0,0 +1,77 @@
+package org.keniding.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressingOutputStreamTest {
+    private static final byte[] LINE = "{\"id\":1,\"name\":\"Ana\"}\n".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void streamingFlushBelowThresholdStartsGzipAndDeliversTheBytes() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AtomicBoolean started = new AtomicBoolean();
+        CompressingOutputStream stream = new CompressingOutputStream(target, 8192, 6, true, () -> started.set(true));
+
+        stream.write(LINE);
+        stream.flush();
+
+        assertTrue(started.get());
+        assertTrue(stream.isCompressed());
+        // Tras el SYNC_FLUSH lo escrito ya se puede descomprimir sin esperar al final
+        assertArrayEquals(LINE, inflatePrefix(target.toByteArray(), LINE.length));
+
+        stream.write(LINE);
+        stream.finish();
+        assertEquals(new String(LINE, StandardCharsets.UTF_8).repeat(2), inflate(target.toByteArray()));
+    }
+
+    @Test
+    void flushBelowThresholdWithoutStreamingSendsIdentity() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        AtomicBoolean started = new AtomicBoolean();
+        CompressingOutputStream stream = new CompressingOutputStream(target, 8192, 6, false, () -> started.set(true));
+
+        stream.write(LINE);
+        stream.flush();
+        stream.write(LINE);
+        stream.finish();
+
+        assertFalse(started.get());
+        assertEquals(new String(LINE, StandardCharsets.UTF_8).repeat(2), target.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void smallBodyWithoutFlushIsNotCompressed() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        CompressingOutputStream stream = new CompressingOutputStream(target, 8192, 6, true, () -> {
+        });
+
+        stream.write(LINE);
+        stream.finish();
+
+        assertFalse(stream.isCompressed());
+        assertArrayEquals(LINE, target.toByteArray());
+    }
+
+    private static String inflate(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] inflatePrefix(byte[] gzip, int length) throws IOException {
+        GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip));
+        return in.readNBytes(length);
+    }
+}
@@ -0,0 +1,72 @@
+package org.keniding.repository;
+
+import org.junit.jupiter.api.Test;
+import org.keniding.dto.PersonStats;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PersonColumnStoreTest {
+
+    @Test
+    void maskedScanMatchesTheRecordByRecordAggregation() {
+        PersonColumnStore store = new PersonColumnStore();
+        Map<Long, PersonRecord> records = new TreeMap<>();
+        Random random = new Random(7);
+        for (long id = 0; id < 5000; id++) {
+            int birthDay = random.nextInt(10) == 0 ? PersonRecord.NO_BIRTH_DAY : random.nextInt(20_000) - 5_000;
+            PersonRecord record = new PersonRecord(id, 0, 0, random.nextInt(130), 1.4 + random.nextDouble() * 0.6,
+                    40 + random.nextDouble() * 80, birthDay);
+            store.put(record);
+            records.put(id, record);
+        }
+        // Las bajas mueven la última fila a su hueco y las modificaciones reutilizan la fila
+        for (long id = 0; id < 5000; id += 3) {
+            store.remove(id);
+            records.remove(id);
+        }
+        for (long id = 1; id < 5000; id += 7) {
+            PersonRecord record = new PersonRecord(id, 0, 0, 30, 1.8, 90, 100);
+            store.put(record);
+            records.put(id, record);
+        }
+
+        assertSameStats(expected(records, 10, Long.MIN_VALUE, Long.MAX_VALUE), store.aggregate(10, Long.MIN_VALUE, Long.MAX_VALUE));
+        assertSameStats(expected(records, 5, 0, 9_000), store.aggregate(5, 0, 9_000));
+        assertSameStats(expected(records, 20, Long.MIN_VALUE, -1), store.aggregate(20, Long.MIN_VALUE, -1));
+        assertSameStats(expected(records, 10, 100, 100), store.aggregate(10, 100, 100));
+        assertEquals(0, store.aggregate(10, 50_000, 40_000).getCount());
+    }
+
+    private static PersonStats expected(Map<Long, PersonRecord> records, int bandWidth, long fromDay, long toDay) {
+        PersonStatsAccumulator accumulator = new PersonStatsAccumulator(bandWidth);
+        for (PersonRecord record : records.values()) {
+            long birthDay = record.hasBirthDay() ? record.birthDay() : Long.MIN_VALUE;
+            if (birthDay >= fromDay && birthDay <= toDay) {
+                accumulator.add(record.age(), record.height(), record.weight());
+            }
+        }
+        return accumulator.toStats("columnar");
+    }
+
+    /**
+     * Compara los agregados admitiendo el error de redondeo de sumar en otro orden.
+     */
+    private static void assertSameStats(PersonStats expected, PersonStats actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getBmiDistribution(), actual.getBmiDistribution());
+        assertEquals(expected.getAgeBands().size(), actual.getAgeBands().size());
+        for (int i = 0; i < expected.getAgeBands().size(); i++) {
+            PersonStats.AgeBand band = expected.getAgeBands().get(i);
+            PersonStats.AgeBand other = actual.getAgeBands().get(i);
+            assertEquals(band.getMinAge(), other.getMinAge());
+            assertEquals(band.getCount(), other.getCount());
+            assertEquals(band.getAverageWeight(), other.getAverageWeight(), 1e-9);
+            assertEquals(band.getAverageHeight(), other.getAverageHeight(), 1e-9);
+            assertEquals(band.getAverageBmi(), other.getAverageBmi(), 1e-9);
+        }
+    }
+}
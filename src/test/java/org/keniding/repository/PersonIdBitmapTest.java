@@ -0,0 +1,44 @@
+package org.keniding.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PersonIdBitmapTest {
+
+    @Test
+    void iteratesInOrderFromAnyIdAcrossPages() {
+        PersonIdBitmap ids = new PersonIdBitmap();
+        for (long id : new long[]{1, 63, 64, 4095, 4096, 10_000, 1L << 40}) {
+            ids.add(id);
+        }
+        ids.remove(64);
+
+        assertEquals(List.of(1L, 63L, 4095L, 4096L, 10_000L, 1L << 40), collect(ids, Long.MIN_VALUE, 100));
+        assertEquals(List.of(4095L, 4096L, 10_000L), collect(ids, 64, 3));
+        assertEquals(List.of(4096L, 10_000L, 1L << 40), collect(ids, 4096, 100));
+        assertEquals(List.of(), collect(ids, (1L << 40) + 1, 100));
+    }
+
+    @Test
+    void removingAnAbsentIdIsANoOp() {
+        PersonIdBitmap ids = new PersonIdBitmap();
+        ids.add(5);
+        ids.remove(6);
+        ids.remove(1_000_000);
+
+        assertEquals(List.of(5L), collect(ids, 0, 10));
+    }
+
+    private static List<Long> collect(PersonIdBitmap ids, long fromId, int limit) {
+        List<Long> result = new ArrayList<>();
+        ids.forEachFrom(fromId, id -> {
+            result.add(id);
+            return result.size() < limit;
+        });
+        return result;
+    }
+}
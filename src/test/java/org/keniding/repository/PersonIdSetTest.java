@@ -0,0 +1,57 @@
+package org.keniding.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersonIdSetTest {
+
+    @Test
+    void addAndRemoveIncludingZero() {
+        PersonIdSet ids = new PersonIdSet();
+        assertTrue(ids.isEmpty());
+        assertTrue(ids.add(0));
+        assertTrue(ids.add(7));
+        assertFalse(ids.add(7));
+
+        assertArrayEquals(new long[]{0, 7}, sorted(ids.toArray()));
+        assertTrue(ids.remove(0));
+        assertFalse(ids.remove(0));
+        assertTrue(ids.remove(7));
+        assertFalse(ids.remove(8));
+        assertTrue(ids.isEmpty());
+    }
+
+    @Test
+    void matchesAReferenceSetUnderRandomChurn() {
+        PersonIdSet ids = new PersonIdSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // Rango pequeño para forzar colisiones y desplazamientos al borrar
+            long id = random.nextInt(5_000);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(id), ids.add(id));
+            } else {
+                assertEquals(expected.remove(id), ids.remove(id));
+            }
+        }
+
+        long[] actual = sorted(ids.toArray());
+        long[] reference = expected.stream().mapToLong(Long::longValue).sorted().toArray();
+        assertArrayEquals(reference, actual);
+    }
+
+    private static long[] sorted(long[] values) {
+        Arrays.sort(values);
+        return values;
+    }
+}
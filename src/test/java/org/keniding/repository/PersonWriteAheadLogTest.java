@@ -0,0 +1,156 @@
+package org.keniding.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.keniding.model.Person;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PersonWriteAheadLogTest {
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversPutsAndDeletesFromTheLog() throws IOException {
+        Person ana = person(1, "Ana", "García", new Date(86_400_000L));
+        Person luis = person(2, "Luis", null, null);
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(directory, SEGMENT_SIZE, 1, false)) {
+            assertEquals(1, log.recover(new State()).nextSequence());
+            log.appendPut(ana);
+            log.appendPut(luis);
+            ana.setAge(41);
+            log.appendPut(ana);
+            log.appendDelete(2);
+        }
+
+        State state = new State();
+        PersonWriteAheadLog.Recovery recovery;
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(directory, SEGMENT_SIZE, 1, false)) {
+            recovery = log.recover(state);
+        }
+
+        assertEquals(Map.of(1L, ana), state.persons);
+        assertEquals(4, recovery.logRecords());
+        assertEquals(0, recovery.snapshotRecords());
+        assertEquals(3, recovery.nextSequence());
+    }
+
+    @Test
+    void snapshotReplacesOlderGenerationsAndLaterChangesReplayOnTop() throws IOException {
+        State live = new State();
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(directory, SEGMENT_SIZE, 1, false)) {
+            log.recover(live);
+            for (long id = 1; id <= 3; id++) {
+                live.put(log, person(id, "Persona " + id, "Apellido", null));
+            }
+            log.snapshot(List.copyOf(live.persons.values()), 10);
+            live.put(log, person(4, "Persona 4", "Apellido", null));
+            live.delete(log, 1);
+        }
+
+        // Solo quedan el snapshot y el log de su generación
+        assertEquals(List.of("snapshot-0000000000000001.snap", "wal-0000000000000001.log"), files());
+
+        State state = new State();
+        PersonWriteAheadLog.Recovery recovery;
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(directory, SEGMENT_SIZE, 1, false)) {
+            recovery = log.recover(state);
+        }
+
+        assertEquals(live.persons, state.persons);
+        assertEquals(3, recovery.snapshotRecords());
+        assertEquals(2, recovery.logRecords());
+        assertEquals(10, recovery.nextSequence());
+    }
+
+    @Test
+    void recordsSpanSeveralSegments() throws IOException {
+        State live = new State();
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(directory, 256, 1, false)) {
+            log.recover(live);
+            for (long id = 1; id <= 50; id++) {
+                live.put(log, person(id, "Persona " + id, "Apellido", null));
+            }
+        }
+
+        State state = new State();
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(directory, 256, 1, false)) {
+            assertEquals(51, log.recover(state).nextSequence());
+        }
+        assertEquals(live.persons, state.persons);
+    }
+
+    @Test
+    void corruptRecordEndsTheSegment() throws IOException {
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(directory, SEGMENT_SIZE, 1, false)) {
+            log.recover(new State());
+            log.appendPut(person(1, "Ana", "García", null));
+            log.appendPut(person(2, "Luis", "Pérez", null));
+        }
+        // Se altera un byte del payload del segundo registro
+        Path segment = directory.resolve(files().get(0));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(length, 0);
+            long second = Integer.BYTES * 2L + length.flip().getInt();
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0x7F}), second + Integer.BYTES * 2L + 5);
+        }
+
+        State state = new State();
+        try (PersonWriteAheadLog log = new PersonWriteAheadLog(directory, SEGMENT_SIZE, 1, false)) {
+            assertEquals(1, log.recover(state).logRecords());
+        }
+        assertEquals(List.of(1L), List.copyOf(state.persons.keySet()));
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static Person person(long id, String name, String lastName, Date birthDate) {
+        return new Person(id, name, lastName, 30, 1.75, 70.5, birthDate);
+    }
+
+    /**
+     * Estado en memoria que se reconstruye al recuperar y que se mantiene al escribir.
+     */
+    private static final class State implements PersonWriteAheadLog.RecoveryListener {
+        private final Map<Long, Person> persons = new TreeMap<>();
+
+        @Override
+        public void put(Person person) {
+            persons.put(person.getId(), person);
+        }
+
+        @Override
+        public void delete(long id) {
+            persons.remove(id);
+        }
+
+        void put(PersonWriteAheadLog log, Person person) {
+            put(person);
+            log.appendPut(person);
+        }
+
+        void delete(PersonWriteAheadLog log, long id) {
+            delete(id);
+            log.appendDelete(id);
+        }
+    }
+}
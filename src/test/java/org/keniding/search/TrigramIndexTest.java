@@ -0,0 +1,88 @@
+package org.keniding.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramIndexTest {
+
+    @Test
+    void shortQueriesAreNotSearchable() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Ab");
+        index.put(2, "Abeja roja");
+        index.put(3, "Cable ab");
+
+        assertFalse(TrigramIndex.searchable("ab"));
+        assertFalse(TrigramIndex.searchable("  a  "));
+        assertTrue(TrigramIndex.searchable(" abe "));
+        assertEquals(0, index.search("ab", 0.0, 0, 10).total());
+        assertEquals(0, index.search("a", 0.0, 0, 10).total());
+    }
+
+    @Test
+    void findsTextAnywhereInTheName() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Cargador   USB-C");
+        index.put(2, "Funda de silicona");
+
+        TrigramIndex.Result result = index.search("usb", 1.0, 0, 10);
+
+        assertEquals(1, result.total());
+        assertEquals(List.of(1L), result.productIds());
+    }
+
+    @Test
+    void ranksByMatchedTrigramsThenByNameLength() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Teclado mecánico RGB");
+        index.put(2, "Teclado");
+        index.put(3, "Tecla");
+        index.put(4, "Ratón");
+
+        TrigramIndex.Result result = index.search("teclado", 0.5, 0, 10);
+
+        assertEquals(3, result.total());
+        assertEquals(List.of(2L, 1L, 3L), result.productIds());
+        assertEquals(List.of(1L), index.search("teclado", 0.5, 1, 1).productIds());
+        assertEquals(List.of(2L, 1L), index.search("teclado", 1.0, 0, 10).productIds());
+    }
+
+    @Test
+    void removedAndRenamedProductsLeaveTheResults() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Lámpara de mesa");
+        index.put(2, "Lámpara de pie");
+        index.remove(1);
+        index.put(2, "Flexo");
+
+        assertEquals(0, index.search("lámpara", 1.0, 0, 10).total());
+        assertEquals(List.of(2L), index.search("flexo", 1.0, 0, 10).productIds());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void compactionKeepsLiveDocuments() {
+        TrigramIndex index = new TrigramIndex();
+        for (long id = 1; id <= 3000; id++) {
+            index.put(id, "Producto " + id);
+        }
+        // Más de 1024 borrados y más de la mitad de los documentos: se compacta
+        for (long id = 1; id <= 2000; id++) {
+            index.remove(id);
+        }
+        index.put(2500, "Artículo renombrado");
+        index.put(3001, "Producto nuevo");
+
+        assertEquals(1001, index.size());
+        assertEquals(1000, index.search("producto", 1.0, 0, 10).total());
+        assertEquals(0, index.search("producto 1999", 1.0, 0, 10).total());
+        assertEquals(List.of(2999L), index.search("producto 2999", 1.0, 0, 10).productIds());
+        assertEquals(List.of(2500L), index.search("renombrado", 1.0, 0, 10).productIds());
+        assertEquals(List.of(3001L), index.search("producto nuevo", 1.0, 0, 10).productIds());
+    }
+}
@@ -0,0 +1,71 @@
+package org.keniding.service;
+
+import org.junit.jupiter.api.Test;
+import org.keniding.enums.ProductCategory;
+import org.keniding.model.Product;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductCsvReaderTest {
+
+    @Test
+    void readsQuotedFieldsWithCommasQuotesAndLineBreaks() {
+        ProductCsvReader reader = reader("""
+                price,Name,description,stock,category,active\r
+                12.50,"Cable, USB-C","Dice ""rápido""\r
+                y largo",3,electronics,false\r
+                4,Libro,,,,\r
+                """);
+
+        Product cable = reader.next();
+        assertEquals("Cable, USB-C", cable.getName());
+        assertEquals("Dice \"rápido\"\r\ny largo", cable.getDescription());
+        assertEquals(new BigDecimal("12.50"), cable.getPrice());
+        assertEquals(3, cable.getStock());
+        assertEquals(ProductCategory.ELECTRONICS, cable.getCategory());
+        assertFalse(cable.isActive());
+
+        Product book = reader.next();
+        assertEquals("Libro", book.getName());
+        assertNull(book.getDescription());
+        assertNull(book.getCategory());
+        assertTrue(book.isActive());
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    void rejectedRowReportsItsNumberAndReadingContinues() {
+        ProductCsvReader reader = reader("""
+                name,price,stock
+                "Primero
+                en dos líneas",1.00,1
+                Segundo,no-es-un-precio,1
+                Tercero,3.00,3
+                """);
+
+        assertEquals("Primero\nen dos líneas", reader.next().getName());
+        ProductImportService.RowRejectedException rejected =
+                assertThrows(ProductImportService.RowRejectedException.class, reader::next);
+        assertTrue(rejected.getMessage().startsWith("Fila CSV 3 "), rejected.getMessage());
+        assertEquals("Tercero", reader.next().getName());
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    void headerMustNameAndPriceColumns() {
+        assertThrows(IllegalArgumentException.class, () -> reader("name,stock\nA,1\n"));
+        assertFalse(reader("").hasNext());
+    }
+
+    private static ProductCsvReader reader(String csv) {
+        return new ProductCsvReader(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,113 @@
+package org.keniding.service;
+
+import org.junit.jupiter.api.Test;
+import org.keniding.dto.CursorPage;
+import org.keniding.model.Product;
+import org.keniding.repository.ProductRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductKeysetCursorTest {
+    private final List<Product> products = List.of(
+            product(1, "Café: molido", "10.5"),
+            product(2, "Añil", "3.00"),
+            product(3, "Café: molido", "10.50"),
+            product(4, "Zapato", "0.99"),
+            product(5, "Añil", "3"),
+            product(6, "Bolígrafo", "120.00"),
+            product(7, "bolígrafo", "3.00"));
+
+    private final ProductService productService =
+            new ProductService(new InMemoryKeysetRepository(products), null, null, null, null);
+
+    @Test
+    void cursorsWalkEveryProductOnceInSortOrder() {
+        for (String sortField : List.of("name", "price", "id")) {
+            for (boolean ascending : List.of(true, false)) {
+                Comparator<Product> order = ascending ? order(sortField) : order(sortField).reversed();
+                List<Long> expected = products.stream().sorted(order).map(product -> product.id).toList();
+
+                List<Long> walked = new ArrayList<>();
+                String cursor = null;
+                do {
+                    CursorPage<Product> page = productService.findAllKeyset(cursor, 2, sortField, ascending);
+                    page.getContent().forEach(product -> walked.add(product.id));
+                    cursor = page.getNext();
+                } while (cursor != null);
+
+                assertEquals(expected, walked, sortField + (ascending ? " asc" : " desc"));
+            }
+        }
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        assertNull(productService.findAllKeyset(null, products.size(), "id", true).getNext());
+    }
+
+    @Test
+    void rejectsCursorsOfAnotherSortOrGarbage() {
+        String nameCursor = productService.findAllKeyset(null, 2, "name", true).getNext();
+
+        assertThrows(IllegalArgumentException.class, () -> productService.findAllKeyset(nameCursor, 2, "name", false));
+        assertThrows(IllegalArgumentException.class, () -> productService.findAllKeyset(nameCursor, 2, "price", true));
+        assertThrows(IllegalArgumentException.class, () -> productService.findAllKeyset("%%%", 2, "name", true));
+        assertThrows(IllegalArgumentException.class, () -> productService.findAllKeyset(null, 0, "name", true));
+    }
+
+    private static Product product(long id, String name, String price) {
+        Product product = new Product();
+        product.id = id;
+        product.setName(name);
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+
+    private static Comparator<Product> order(String sortField) {
+        Comparator<Product> byField = switch (sortField) {
+            case "name" -> Comparator.comparing(Product::getName);
+            case "price" -> Comparator.comparing(Product::getPrice);
+            default -> (first, second) -> 0;
+        };
+        return byField.thenComparing(product -> product.id);
+    }
+
+    /**
+     * Repositorio que resuelve la condición de keyset sobre una lista en memoria.
+     */
+    private static final class InMemoryKeysetRepository extends ProductRepository {
+        private final List<Product> products;
+
+        InMemoryKeysetRepository(List<Product> products) {
+            this.products = products;
+        }
+
+        @Override
+        public List<Product> findAllActiveAfter(String sortField, boolean ascending, Object lastValue, Long lastId, int limit) {
+            Comparator<Product> order = ascending ? order(sortField) : order(sortField).reversed();
+            Product last = null;
+            if (lastId != null) {
+                last = new Product();
+                last.id = lastId;
+                if (lastValue instanceof String name) {
+                    last.setName(name);
+                } else if (lastValue instanceof BigDecimal price) {
+                    last.setPrice(price);
+                }
+            }
+            Product after = last;
+            return products.stream()
+                    .filter(product -> after == null || order.compare(product, after) > 0)
+                    .sorted(order)
+                    .limit(limit)
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.keniding.service;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keniding.enums.ProductCategory;
+import org.keniding.model.Product;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Ajustes de stock por el UPDATE condicional, con el agrupador desactivado (valor por defecto).
+ */
+@QuarkusTest
+class ProductStockTest {
+    @Inject
+    ProductService productService;
+
+    private Long productId;
+
+    @BeforeEach
+    void createProduct() {
+        Product product = new Product();
+        product.setName("Producto de stock");
+        product.setPrice(new BigDecimal("9.99"));
+        product.setStock(5);
+        product.setCategory(ProductCategory.OTHER);
+        productId = productService.create(product).id;
+    }
+
+    @AfterEach
+    void deleteProduct() {
+        productService.deleteHard(productId);
+    }
+
+    @Test
+    void adjustsStockWithoutGoingNegative() {
+        assertEquals(2, productService.updateStock(productId, -3).getStock());
+        assertEquals(6, productService.updateStock(productId, 4).getStock());
+        assertEquals(0, productService.updateStock(productId, -6).getStock());
+    }
+
+    @Test
+    void rejectsAdjustmentThatWouldGoNegativeAndKeepsStock() {
+        assertThrows(IllegalArgumentException.class, () -> productService.updateStock(productId, -6));
+
+        assertEquals(5, productService.findById(productId).getStock());
+    }
+
+    @Test
+    void missingProductIsNotFound() {
+        assertThrows(NotFoundException.class, () -> productService.updateStock(-1L, 1));
+    }
+}
@@ -0,0 +1,170 @@
+package org.keniding.service;
+
+import org.junit.jupiter.api.Test;
+import org.keniding.repository.ProductRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+class StockAdjustmentCoalescerTest {
+
+    @Test
+    void appliesABatchInArrivalOrderAndRejectsOnlyWhatWouldGoNegative() throws Exception {
+        FakeStockRepository repository = new FakeStockRepository(10);
+        CountDownLatch firstBatchEntered = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        StockAdjustmentCoalescer coalescer = coalescer(repository, work -> {
+            if (firstBatchEntered.getCount() > 0) {
+                firstBatchEntered.countDown();
+                await(releaseFirstBatch);
+            }
+            work.run();
+        });
+
+        // El primer ajuste retiene el combinador; los siguientes se encolan detrás en orden
+        Call first = Call.start(coalescer, -2);
+        assertTrue(firstBatchEntered.await(5, TimeUnit.SECONDS));
+        Call second = Call.startQueued(coalescer, -7);
+        Call third = Call.startQueued(coalescer, -5);
+        Call fourth = Call.startQueued(coalescer, 3);
+        releaseFirstBatch.countDown();
+
+        assertEquals(8, first.get());
+        assertEquals(1, second.get());
+        ExecutionException rejected = assertThrows(ExecutionException.class, third::get);
+        assertInstanceOf(IllegalArgumentException.class, rejected.getCause());
+        assertEquals(4, fourth.get());
+
+        // Un bloqueo y un UPDATE por lote, no por ajuste
+        assertEquals(2, repository.locks);
+        assertEquals(List.of(8, 4), repository.writes);
+    }
+
+    @Test
+    void rejectedBatchDoesNotWrite() {
+        FakeStockRepository repository = new FakeStockRepository(1);
+        StockAdjustmentCoalescer coalescer = coalescer(repository, Runnable::run);
+
+        assertThrows(IllegalArgumentException.class, () -> coalescer.adjust(1L, -2));
+
+        assertEquals(1, repository.locks);
+        assertEquals(List.of(), repository.writes);
+        assertEquals(0, coalescer.adjust(1L, -1));
+        assertEquals(List.of(0), repository.writes);
+    }
+
+    @Test
+    void failedTransactionFailsEveryAdjustmentOfTheBatch() {
+        FakeStockRepository repository = new FakeStockRepository(5);
+        IllegalStateException failure = new IllegalStateException("rollback");
+        StockAdjustmentCoalescer coalescer = coalescer(repository, work -> {
+            work.run();
+            throw failure;
+        });
+
+        assertEquals(failure, assertThrows(IllegalStateException.class, () -> coalescer.adjust(1L, -1)));
+    }
+
+    private static StockAdjustmentCoalescer coalescer(ProductRepository repository, Transaction transaction) {
+        StockAdjustmentCoalescer coalescer = new StockAdjustmentCoalescer() {
+            @Override
+            void inTransaction(Runnable work) {
+                transaction.run(work);
+            }
+        };
+        coalescer.enabled = true;
+        coalescer.maxBatch = 256;
+        coalescer.productRepository = repository;
+        return coalescer;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Tiempo de espera agotado");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private interface Transaction {
+        void run(Runnable work);
+    }
+
+    /**
+     * Ajuste lanzado en su propio hilo.
+     */
+    private record Call(Thread thread, CompletableFuture<Integer> result) {
+
+        static Call start(StockAdjustmentCoalescer coalescer, int delta) {
+            CompletableFuture<Integer> result = new CompletableFuture<>();
+            Thread thread = new Thread(() -> {
+                try {
+                    result.complete(coalescer.adjust(1L, delta));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            thread.start();
+            return new Call(thread, result);
+        }
+
+        /**
+         * Lanza el ajuste y espera a que esté en la cola: mientras otro hilo combina, el
+         * ajuste ya encolado queda parado esperando su resultado.
+         */
+        static Call startQueued(StockAdjustmentCoalescer coalescer, int delta) throws InterruptedException {
+            Call call = start(coalescer, delta);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (call.thread.getState() != Thread.State.WAITING) {
+                if (System.nanoTime() > deadline) {
+                    fail("El ajuste no llegó a encolarse");
+                }
+                Thread.sleep(1);
+            }
+            return call;
+        }
+
+        int get() throws Exception {
+            return result.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Repositorio con el stock de un único producto en memoria.
+     */
+    private static final class FakeStockRepository extends ProductRepository {
+        private final List<Integer> writes = new ArrayList<>();
+        private int stock;
+        private int locks;
+
+        FakeStockRepository(int stock) {
+            this.stock = stock;
+        }
+
+        @Override
+        public synchronized Optional<Integer> lockStock(Long id) {
+            locks++;
+            return Optional.of(stock);
+        }
+
+        @Override
+        public synchronized void setStock(Long id, int stock) {
+            this.stock = stock;
+            writes.add(stock);
+        }
+    }
+}